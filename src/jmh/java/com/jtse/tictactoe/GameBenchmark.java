@@ -0,0 +1,121 @@
+package com.jtse.tictactoe;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the {@code Game} hot paths.
+ *
+ * Random inputs are generated up front from a fixed seed, and each benchmark
+ * cycles through them, so the same work is measured on every run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+    private static final int INPUTS = 1024; // a power of 2, for cheap cycling
+
+    private int[][] moveOrders = new int[INPUTS][];
+    private Boolean[][] boards = new Boolean[INPUTS][];
+    private Game midGame;
+    private final MoveIterator moves = new MoveIterator();
+    private int next;
+
+    // Returns a random permutation of the board locations.
+    private static int[] randomMoveOrder(Random random) {
+        int[] order = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+        return order;
+    }
+
+    // Plays moves in the given order, stopping after numMoves moves or when the game is over.
+    private static Game play(int[] order, int numMoves) throws InvalidMoveException {
+        Game game = new Game();
+        for (int i = 0; i < numMoves; i++) {
+            Boolean nextPlayer = game.findNextPlayer();
+            if (nextPlayer == null) break;
+            game.move(nextPlayer, order[i]);
+        }
+        return game;
+    }
+
+    @Setup
+    public void setUp() throws InvalidMoveException {
+        Random random = new Random(42);
+        for (int i = 0; i < INPUTS; i++) {
+            moveOrders[i] = randomMoveOrder(random);
+            boards[i] = play(randomMoveOrder(random), random.nextInt(10)).getBoard();
+        }
+        midGame = play(new int[]{4, 0, 8, 2}, 4);
+    }
+
+    private int nextInput() {
+        return next++ & (INPUTS - 1);
+    }
+
+    @Benchmark
+    public Game singleMove() throws InvalidMoveException {
+        Game game = new Game();
+        game.move(Game.PIECE_X, 4);
+        return game;
+    }
+
+    @Benchmark
+    public MoveResult tryOccupiedMove() {
+        return midGame.tryMove(Game.PIECE_X, 4);
+    }
+
+    @Benchmark
+    public InvalidMoveException occupiedMove() {
+        try {
+            midGame.move(Game.PIECE_X, 4);
+            return null;
+        } catch (InvalidMoveException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Boolean findWinner() {
+        return midGame.findWinner();
+    }
+
+    @Benchmark
+    public Boolean findNextPlayer() {
+        return midGame.findNextPlayer();
+    }
+
+    @Benchmark
+    public int legalMoves() {
+        int sum = 0;
+        for (MoveIterator it = midGame.legalMoves(); it.hasNext(); ) sum += it.nextInt();
+        return sum;
+    }
+
+    @Benchmark
+    public int legalMovesReused() {
+        int sum = 0;
+        for (midGame.legalMoves(moves); moves.hasNext(); ) sum += moves.nextInt();
+        return sum;
+    }
+
+    @Benchmark
+    public Boolean randomGame() throws InvalidMoveException {
+        return play(moveOrders[nextInput()], Bitboard.CELLS).findWinner();
+    }
+
+    @Benchmark
+    public Game restoreBoard() throws InvalidBoardException {
+        return new Game(boards[nextInput()]);
+    }
+}
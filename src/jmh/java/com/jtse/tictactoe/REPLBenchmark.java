@@ -0,0 +1,88 @@
+package com.jtse.tictactoe;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the {@code REPL} command parsing and rendering paths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class REPLBenchmark {
+    // The number of commands in the batch run by runBatch().
+    private static final int BATCH_COMMANDS = 3000;
+
+    private REPL repl;
+    private final StringBuilder out = new StringBuilder();
+    private byte[] batch;
+    private final ByteArrayOutputStream batchOut = new ByteArrayOutputStream();
+
+    @Setup
+    public void setUp() throws Exception {
+        repl = new REPL(new ByteArrayInputStream(new byte[0]), new PrintStream(new ByteArrayOutputStream()));
+        for (String command: new String[]{"move x 4", "move o 0", "move x 8", "move o 2"}) {
+            repl.eval(command);
+        }
+
+        StringBuilder commands = new StringBuilder();
+        for (int i = 0; i < BATCH_COMMANDS / 3; i++) {
+            commands.append("new\nmove x 4\nMOVE O 4\n");
+        }
+        batch = commands.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public String drawBoard() {
+        return repl.drawBoard();
+    }
+
+    @Benchmark
+    public StringBuilder drawBoardInto() {
+        out.setLength(0);
+        repl.drawBoard(out);
+        return out;
+    }
+
+    @Benchmark
+    public String findGameStatus() {
+        return repl.findGameStatus();
+    }
+
+    @Benchmark
+    public String evalInvalidCommand() throws Exception {
+        return repl.eval("foo bar baz");
+    }
+
+    @Benchmark
+    public String evalInvalidPiece() throws Exception {
+        return repl.eval("move foo 0");
+    }
+
+    // The move is parsed, then rejected by the game, so the board is unchanged.
+    @Benchmark
+    public String evalRejectedMove() throws Exception {
+        return repl.eval("MOVE O 1");
+    }
+
+    // Per batch of BATCH_COMMANDS commands, writing only the results.
+    @Benchmark
+    public ByteArrayOutputStream runBatch() throws Exception {
+        batchOut.reset();
+        new REPL(new ByteArrayInputStream(batch), new PrintStream(batchOut)).runBatch(REPL.BatchOutput.RESULTS);
+        return batchOut;
+    }
+
+    @Benchmark
+    public String evalHint() throws Exception {
+        return repl.eval("hint");
+    }
+}
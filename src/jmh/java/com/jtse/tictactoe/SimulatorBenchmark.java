@@ -0,0 +1,48 @@
+package com.jtse.tictactoe;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of batch simulation, on one thread and on every core.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimulatorBenchmark {
+    private static final long GAMES = 1_000_000;
+
+    @Param({"1", "0"}) // 0 means one thread per available processor
+    public int threads;
+
+    private ForkJoinPool pool;
+    private Simulator random;
+    private Simulator perfect;
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        random = new Simulator(MovePolicy.random(), MovePolicy.random(), pool);
+        perfect = new Simulator(MovePolicy.perfect(), MovePolicy.perfect(), pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Simulator.Statistics randomGames() {
+        return random.run(GAMES, 42);
+    }
+
+    @Benchmark
+    public Simulator.Statistics perfectGames() {
+        return perfect.run(GAMES, 42);
+    }
+}
@@ -0,0 +1,48 @@
+package com.jtse.tictactoe;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a round-robin tournament, on one thread and on every core.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TournamentBenchmark {
+    // 4 players make 6 pairings, so each run plays 600,000 games.
+    private static final long GAMES_PER_PAIRING = 100_000;
+
+    @Param({"1", "0"}) // 0 means one thread per available processor
+    public int threads;
+
+    private ForkJoinPool pool;
+    private Tournament tournament;
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        tournament = new Tournament(Arrays.asList(
+                new Player("random", MovePolicy.random()),
+                new Player("perfect", MovePolicy.perfect()),
+                new Player("scripted", MovePolicy.scripted(4, 0, 2, 6, 8)),
+                new Player("random 2", MovePolicy.random())
+        ), GAMES_PER_PAIRING, 1, TimeUnit.SECONDS, pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Tournament.Results roundRobin() {
+        return tournament.roundRobin(42);
+    }
+}
@@ -0,0 +1,231 @@
+package com.jtse.tictactoe;
+
+import java.util.Random;
+
+/**
+ * Helpers for the packed board representation used by {@code Game}.
+ *
+ * A position is packed into a single {@code int} holding two 9-bit masks,
+ * one bit per location (numbered as in {@code Game}):
+ * <ul>
+ *     <li>bits 0-8 - the locations occupied by X</li>
+ *     <li>bits 9-17 - the locations occupied by O</li>
+ * </ul>
+ *
+ * An empty board is therefore {@code 0}.
+ */
+final class Bitboard {
+    private Bitboard() {}
+
+    /**
+     * The number of locations on the board.
+     */
+    static final int CELLS = 9;
+
+    /**
+     * A 9-bit mask with every location set.
+     */
+    static final int FULL = (1 << CELLS) - 1;
+
+    /**
+     * The shift from X's mask to O's mask within a packed board.
+     */
+    static final int O_SHIFT = CELLS;
+
+    /**
+     * The 9-bit masks of the 8 winning lines: 3 rows, 3 columns, and 2 diagonals.
+     */
+    static final int[] LINES = {
+            0b000_000_111, // row 0
+            0b000_111_000, // row 1
+            0b111_000_000, // row 2
+            0b001_001_001, // column 0
+            0b010_010_010, // column 1
+            0b100_100_100, // column 2
+            0b100_010_001, // diagonal 0-4-8
+            0b001_010_100, // diagonal 2-4-6
+    };
+
+    /**
+     * The number of distinct base-3 board indexes (see {@code index()}).
+     */
+    static final int INDEXES = 19683; // 3^9
+
+    // TERNARY[mask] is the base-3 number with a 1 digit for each location set in the 9-bit mask.
+    private static final int[] TERNARY = new int[1 << CELLS];
+    static {
+        for (int mask = 0; mask < TERNARY.length; mask++) {
+            int power = 1;
+            for (int i = 0; i < CELLS; i++, power *= 3) {
+                if ((mask & (1 << i)) != 0) TERNARY[mask] += power;
+            }
+        }
+    }
+
+    // WINNING[mask] is true if the 9-bit mask contains at least one complete line.
+    private static final boolean[] WINNING = new boolean[1 << CELLS];
+    static {
+        for (int mask = 0; mask < WINNING.length; mask++) {
+            for (int line: LINES) {
+                if ((mask & line) == line) {
+                    WINNING[mask] = true;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the 9-bit mask of X's pieces on the packed board
+     */
+    static int xMask(int bits) {
+        return bits & FULL;
+    }
+
+    /**
+     * @return the 9-bit mask of O's pieces on the packed board
+     */
+    static int oMask(int bits) {
+        return (bits >>> O_SHIFT) & FULL;
+    }
+
+    /**
+     * @return the 9-bit mask of occupied locations on the packed board
+     */
+    static int occupied(int bits) {
+        return xMask(bits) | oMask(bits);
+    }
+
+    /**
+     * @return the 9-bit mask of empty locations on the packed board
+     */
+    static int empty(int bits) {
+        return ~occupied(bits) & FULL;
+    }
+
+    /**
+     * @return true if O moves next on the packed board (assuming the game is not over)
+     */
+    static boolean isOToMove(int bits) {
+        return Integer.bitCount(xMask(bits)) > Integer.bitCount(oMask(bits));
+    }
+
+    /**
+     * @return the 9-bit mask of one player's pieces on the packed board
+     */
+    static int mask(int bits, boolean pieceO) {
+        return pieceO ? oMask(bits) : xMask(bits);
+    }
+
+    /**
+     * @return the bit to set in a packed board to place a piece at {@code idx}
+     */
+    static int bit(boolean pieceO, int idx) {
+        return 1 << (pieceO ? idx + O_SHIFT : idx);
+    }
+
+    /**
+     * @return true if the 9-bit mask contains a complete winning line
+     */
+    static boolean isWinning(int mask) {
+        return WINNING[mask];
+    }
+
+    /**
+     * Find the winner of the packed board.
+     *
+     * If both players have a complete line, which cannot happen in play, the
+     * winner is the owner of the first complete line in the order of
+     * {@code LINES}: rows, then columns, then diagonals.
+     *
+     * @return {@code Game.PIECE_X}, {@code Game.PIECE_O}, or {@code null} if no line is complete
+     */
+    static Boolean winner(int bits) {
+        final int x = xMask(bits), o = oMask(bits);
+        final boolean xWon = isWinning(x), oWon = isWinning(o);
+        if (xWon && oWon) {
+            for (int line: LINES) {
+                if ((x & line) == line) return Game.PIECE_X;
+                if ((o & line) == line) return Game.PIECE_O;
+            }
+        }
+        if (xWon) return Game.PIECE_X;
+        if (oWon) return Game.PIECE_O;
+        return null;
+    }
+
+    /**
+     * Find the piece at a location on the packed board.
+     *
+     * @return {@code Game.PIECE_X}, {@code Game.PIECE_O}, or {@code null} if empty
+     */
+    static Boolean pieceAt(int bits, int idx) {
+        if ((bits & (1 << idx)) != 0) return Game.PIECE_X;
+        if ((bits & (1 << (idx + O_SHIFT))) != 0) return Game.PIECE_O;
+        return null;
+    }
+
+    /**
+     * Choose a uniformly random location from a non-empty 9-bit mask of locations.
+     */
+    static int randomLocation(int mask, Random random) {
+        for (int n = random.nextInt(Integer.bitCount(mask)); n > 0; n--) {
+            mask &= mask - 1; // clear the lowest set bit
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    /**
+     * Find the base-3 index of a packed board.
+     *
+     * The index is a perfect hash: each location contributes a base-3 digit
+     * (0 for empty, 1 for X, 2 for O), with location 0 as the least significant
+     * digit. Every board has a distinct index in {@code [0, INDEXES)}.
+     */
+    static int index(int bits) {
+        return TERNARY[xMask(bits)] + 2 * TERNARY[oMask(bits)];
+    }
+
+    /**
+     * Find the amount by which placing a piece at {@code idx} increases a board's base-3 index.
+     */
+    static int digit(boolean pieceO, int idx) {
+        return (pieceO ? 2 : 1) * TERNARY[1 << idx];
+    }
+
+    /**
+     * Find the packed board with a given base-3 index.
+     */
+    static int fromIndex(int index) {
+        int bits = 0;
+        for (int i = 0; i < CELLS; i++, index /= 3) {
+            final int digit = index % 3;
+            if (digit != 0) bits |= bit(digit == 2, i);
+        }
+        return bits;
+    }
+
+    /**
+     * Pack a board array into a packed board.
+     *
+     * The array must be exactly {@code CELLS} elements long.
+     */
+    static int pack(Boolean[] board) {
+        int bits = 0;
+        for (int i = 0; i < CELLS; i++) {
+            if (board[i] != null) bits |= bit(board[i], i);
+        }
+        return bits;
+    }
+
+    /**
+     * Unpack a packed board into a newly allocated board array.
+     */
+    static Boolean[] unpack(int bits) {
+        Boolean[] board = new Boolean[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            board[i] = pieceAt(bits, i);
+        }
+        return board;
+    }
+}
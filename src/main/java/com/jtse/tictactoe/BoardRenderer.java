@@ -0,0 +1,77 @@
+package com.jtse.tictactoe;
+
+/**
+ * Renders packed boards (see {@code Bitboard}) as the ASCII art shown by the REPL.
+ *
+ * Every board renders to the same 70-character template, with only the 9
+ * piece characters varying, so a board can be appended to a
+ * {@code StringBuilder} one character at a time without allocating. Rendered
+ * strings are also cached by base-3 board index, so each board is only
+ * rendered to a {@code String} once.
+ */
+final class BoardRenderer {
+    private BoardRenderer() {}
+
+    // The rendered board, with a '?' in place of each piece, in location order.
+    private static final char[] TEMPLATE = (
+              "   ? | ? | ? \n"
+            + "  ---+---+---\n"
+            + "   ? | ? | ? \n"
+            + "  ---+---+---\n"
+            + "   ? | ? | ? \n"
+    ).toCharArray();
+
+    // PIECE_OFFSETS[i] is the offset in TEMPLATE of the character for location i.
+    private static final int[] PIECE_OFFSETS = new int[Bitboard.CELLS];
+    static {
+        for (int offset = 0, idx = 0; offset < TEMPLATE.length; offset++) {
+            if (TEMPLATE[offset] == '?') PIECE_OFFSETS[idx++] = offset;
+        }
+    }
+
+    /**
+     * The length of a rendered board.
+     */
+    static final int LENGTH = TEMPLATE.length;
+
+    // Rendered boards, indexed by base-3 board index, filled in as they are first needed.
+    // Strings are immutable, so racing threads can at worst render the same board twice.
+    private static final String[] cache = new String[Bitboard.INDEXES];
+
+    /**
+     * @return the character drawn for the piece at location {@code idx}: 'X', 'O', or ' '
+     */
+    static char pieceChar(int bits, int idx) {
+        if ((bits & (1 << idx)) != 0) return 'X';
+        if ((bits & (1 << (idx + Bitboard.O_SHIFT))) != 0) return 'O';
+        return ' ';
+    }
+
+    /**
+     * Append the rendered board to a {@code StringBuilder}.
+     */
+    static void render(int bits, StringBuilder out) {
+        int start = 0;
+        for (int idx = 0; idx < Bitboard.CELLS; idx++) {
+            final int offset = PIECE_OFFSETS[idx];
+            out.append(TEMPLATE, start, offset - start).append(pieceChar(bits, idx));
+            start = offset + 1;
+        }
+        out.append(TEMPLATE, start, TEMPLATE.length - start);
+    }
+
+    /**
+     * @return the rendered board, from the cache if possible
+     */
+    static String render(int bits) {
+        final int index = Bitboard.index(bits);
+        String rendered = cache[index];
+        if (rendered == null) {
+            StringBuilder out = new StringBuilder(LENGTH);
+            render(bits, out);
+            rendered = out.toString();
+            cache[index] = rendered;
+        }
+        return rendered;
+    }
+}
@@ -0,0 +1,150 @@
+package com.jtse.tictactoe;
+
+/**
+ * Fast validation of encoded boards (see {@code Game.encode()}), in bulk.
+ *
+ * A board is legal if it can be reached from an empty board by legal play.
+ * This is stricter than the check made by {@code Game(Boolean[])}, which only
+ * requires that the players have taken turns: it also rejects boards on which
+ * both players have won, and boards on which play continued after a win.
+ *
+ * Every one of the 3^9 codes is classified once, when the class is loaded. The
+ * legal codes are the 5,478 positions in {@code PerfectPlayTable}, which is
+ * built then if it has not been already. They are kept as a bitset, and the
+ * reasons the others are illegal in a table, so validating a board is a single
+ * lookup.
+ *
+ * This class is thread-safe.
+ */
+public final class BoardValidator {
+    private BoardValidator() {}
+
+    /**
+     * The result of validating a board.
+     */
+    public enum Reason {
+        /**
+         * The board is legal.
+         */
+        LEGAL(null),
+        /**
+         * The value is not a board code.
+         */
+        INVALID_CODE("not a board code"),
+        /**
+         * X has more than one piece more than O.
+         */
+        X_OUT_OF_TURN("'X' has moved out of turn"),
+        /**
+         * O has more pieces than X.
+         */
+        O_OUT_OF_TURN("'O' has moved out of turn"),
+        /**
+         * Both players have three in a row.
+         */
+        BOTH_WON("both players have won"),
+        /**
+         * A player has three in a row, but moves were made after the winning move.
+         */
+        PLAYED_AFTER_WIN("play continued after the game was won");
+
+        private final String message;
+
+        Reason(String message) {
+            this.message = message;
+        }
+
+        /**
+         * @return a description of why the board is illegal; or {@code null} if it is legal
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private static final Reason[] REASONS = Reason.values();
+
+    // Bit i is set if code i is legal.
+    private static final long[] LEGAL = new long[(Bitboard.INDEXES + 63) >>> 6];
+
+    // REASONS_BY_CODE[i] is the ordinal of the Reason for code i.
+    private static final byte[] REASONS_BY_CODE = new byte[Bitboard.INDEXES];
+
+    static {
+        for (int code = 0; code < Bitboard.INDEXES; code++) {
+            if (PerfectPlayTable.isLegal(PerfectPlayTable.entryAt(code))) {
+                LEGAL[code >>> 6] |= 1L << code;
+                continue;
+            }
+
+            final int bits = Bitboard.fromIndex(code);
+            final int balance = Integer.bitCount(Bitboard.xMask(bits)) - Integer.bitCount(Bitboard.oMask(bits));
+            final Reason reason = balance > 1 ? Reason.X_OUT_OF_TURN
+                    : balance < 0 ? Reason.O_OUT_OF_TURN
+                    : Bitboard.isWinning(Bitboard.xMask(bits)) && Bitboard.isWinning(Bitboard.oMask(bits))
+                        ? Reason.BOTH_WON
+                    // The players took turns and nobody won twice, so the board is unreachable
+                    // only because a move was made after a win.
+                    : Reason.PLAYED_AFTER_WIN;
+            REASONS_BY_CODE[code] = (byte) reason.ordinal();
+        }
+    }
+
+    /**
+     * @return true if {@code code} is the code of a legal board
+     */
+    public static boolean isLegal(int code) {
+        return code >= 0 && code < Bitboard.INDEXES && (LEGAL[code >>> 6] & (1L << code)) != 0;
+    }
+
+    /**
+     * Validate a single encoded board.
+     *
+     * @param code the board code
+     * @return {@code Reason.LEGAL} if the board is legal; otherwise, the reason it is not
+     */
+    public static Reason check(int code) {
+        if (code < 0 || code >= Bitboard.INDEXES) return Reason.INVALID_CODE;
+        return REASONS[REASONS_BY_CODE[code]];
+    }
+
+    /**
+     * Validate a batch of encoded boards.
+     *
+     * This does not allocate.
+     *
+     * @param codes the board codes
+     * @param offset the index in {@code codes} of the first code to validate
+     * @param length the number of codes to validate
+     * @param reasons receives the result for each code, at the same index as the code
+     * @return the number of legal boards
+     * @throws IndexOutOfBoundsException if the range is not within both arrays
+     */
+    public static int validate(int[] codes, int offset, int length, Reason[] reasons) {
+        if (offset < 0 || length < 0 || offset + length > codes.length || offset + length > reasons.length) {
+            throw new IndexOutOfBoundsException("invalid range: " + offset + ", " + length);
+        }
+
+        int legal = 0;
+        for (int i = offset; i < offset + length; i++) {
+            final Reason reason = check(codes[i]);
+            reasons[i] = reason;
+            if (reason == Reason.LEGAL) legal++;
+        }
+        return legal;
+    }
+
+    /**
+     * Count the results of validating a batch of encoded boards, by reason.
+     *
+     * @param codes the board codes
+     * @return an array indexed by {@code Reason} ordinal, of the number of codes with each result
+     */
+    public static int[] countReasons(int[] codes) {
+        int[] counts = new int[REASONS.length];
+        for (int code: codes) {
+            counts[check(code).ordinal()]++;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,189 @@
+package com.jtse.tictactoe;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A parser for REPL command lines.
+ *
+ * The parser tokenizes a line in place, comparing words case-insensitively
+ * character by character, so parsing a valid command does not allocate. (Only
+ * an error message, for a line that is not a valid command, is built as a new
+ * string.) The result is left in the parser's fields, and the same parser is
+ * reused for each line; it is not thread-safe.
+ *
+ * Words are separated by whitespace, and any words after a complete command
+ * are ignored.
+ */
+final class CommandParser {
+    /**
+     * The kind of command parsed; or {@code null} if the line was blank or {@code exit}.
+     */
+    Metrics.Command command;
+
+    /**
+     * True if the line was the command {@code exit}.
+     */
+    boolean exit;
+
+    /**
+     * The piece to move, for a valid {@code move} command.
+     */
+    Boolean piece;
+
+    /**
+     * The location to move to, for a valid {@code move} command. (It may not be on the board.)
+     */
+    int location;
+
+    /**
+     * The error message for an invalid command, or for a {@code move} command with
+     * an invalid piece or location; otherwise {@code null}.
+     */
+    String error;
+
+    /**
+     * Parse a whole line.
+     */
+    void parse(CharSequence line) {
+        parse(line, 0, line.length());
+    }
+
+    /**
+     * Parse the characters of a line from {@code start} up to (not including) {@code end}.
+     */
+    void parse(CharSequence line, int start, int end) {
+        command = null;
+        exit = false;
+        piece = null;
+        location = 0;
+        error = null;
+
+        int tokenStart = skipWhitespace(line, start, end);
+        if (tokenStart == end) return; // blank
+        int tokenEnd = tokenEnd(line, tokenStart, end);
+
+        if (matches(line, tokenStart, tokenEnd, "new")) command = Metrics.Command.NEW;
+        else if (matches(line, tokenStart, tokenEnd, "move")) command = Metrics.Command.MOVE;
+        else if (matches(line, tokenStart, tokenEnd, "hint")) command = Metrics.Command.HINT;
+        else if (matches(line, tokenStart, tokenEnd, "undo")) command = Metrics.Command.UNDO;
+        else if (matches(line, tokenStart, tokenEnd, "redo")) command = Metrics.Command.REDO;
+        else if (matches(line, tokenStart, tokenEnd, "ai")) command = Metrics.Command.AI;
+        else if (matches(line, tokenStart, tokenEnd, "exit")) exit = true;
+        else {
+            command = Metrics.Command.INVALID;
+            error = "Invalid command: " + lowerCase(line, tokenStart, tokenEnd);
+        }
+        if (command != Metrics.Command.MOVE) return;
+
+        tokenStart = skipWhitespace(line, tokenEnd, end);
+        if (tokenStart == end) {
+            error = "move: a piece is required (must be X or O)";
+            return;
+        }
+        tokenEnd = tokenEnd(line, tokenStart, end);
+        if (matches(line, tokenStart, tokenEnd, "x")) piece = Game.PIECE_X;
+        else if (matches(line, tokenStart, tokenEnd, "o")) piece = Game.PIECE_O;
+        else {
+            error = "move: " + lowerCase(line, tokenStart, tokenEnd) + " is not a valid piece (must be X or O)";
+            return;
+        }
+
+        tokenStart = skipWhitespace(line, tokenEnd, end);
+        if (tokenStart == end) {
+            error = "move: a location is required (must be between 0 and 8)";
+            return;
+        }
+        tokenEnd = tokenEnd(line, tokenStart, end);
+        if (!parseInt(line, tokenStart, tokenEnd)) {
+            error = "move: " + lowerCase(line, tokenStart, tokenEnd)
+                    + " is not a valid location (must be between 0 and 8)";
+        }
+    }
+
+    private static int skipWhitespace(CharSequence line, int i, int end) {
+        while (i < end && Character.isWhitespace(line.charAt(i))) i++;
+        return i;
+    }
+
+    private static int tokenEnd(CharSequence line, int i, int end) {
+        while (i < end && !Character.isWhitespace(line.charAt(i))) i++;
+        return i;
+    }
+
+    // Checks whether a token is a lowercase word, ignoring the case of the token.
+    private static boolean matches(CharSequence line, int start, int end, String word) {
+        if (end - start != word.length()) return false;
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(line.charAt(start + i)) != word.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static String lowerCase(CharSequence line, int start, int end) {
+        StringBuilder token = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) token.append(Character.toLowerCase(line.charAt(i)));
+        return token.toString();
+    }
+
+    // Parses a token as a decimal int, with an optional sign, into location.
+    private boolean parseInt(CharSequence line, int start, int end) {
+        final boolean negative = line.charAt(start) == '-';
+        if (negative || line.charAt(start) == '+') start++;
+        if (start == end) return false;
+
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            final int digit = Character.digit(line.charAt(i), 10);
+            if (digit < 0) return false;
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) return false;
+        }
+        if (negative) value = -value;
+        if (value > Integer.MAX_VALUE) return false;
+
+        location = (int) value;
+        return true;
+    }
+
+    /**
+     * A reusable view of a range of bytes as characters, one per byte (as ISO-8859-1),
+     * so that lines read as bytes can be parsed without decoding them.
+     */
+    static final class ByteChars implements CharSequence {
+        private byte[] bytes;
+        private int offset;
+        private int length;
+
+        /**
+         * Point the view at a range of bytes.
+         *
+         * @return this view
+         */
+        ByteChars wrap(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[offset + index] & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
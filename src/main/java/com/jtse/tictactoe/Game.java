@@ -1,16 +1,17 @@
 package com.jtse.tictactoe;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * A game of Tic-Tac-Toe.
  *
  * This class tracks the board and knows the gameplay rules.
  *
- * The board is stored as an array of {@code Boolean} values.
+ * The board is presented as an array of {@code Boolean} values.
  * A {@code null} element represents an empty space, and non-null
  * elements represent X's and O's, according to defined constants.
+ * Internally, the board is packed into a single {@code int} (see
+ * {@code Bitboard}), and the piece counts, winner, and next player are
+ * updated incrementally as moves are applied, so moving and checking the
+ * game state are constant-time and do not allocate.
  *
  * The board array is exactly 9 elements long, and locations are
  * specified by index:
@@ -40,40 +41,74 @@ public class Game {
      */
     public static final Boolean PIECE_O = true;
 
-    private Boolean[] board = new Boolean[9];
+    /**
+     * The number of distinct codes returned by {@code encode()}.
+     */
+    public static final int CODES = Bitboard.INDEXES;
 
-    // Counts the number of each piece and empty space on the board.
-    // Returns a map with board element values as key and the corresponding count as value.
-    private Map<Boolean, Integer> pieceCounts(Boolean[] board) {
-        Map<Boolean, Integer> counts = new HashMap<>();
+    // The packed board: X's pieces in bits 0-8, O's pieces in bits 9-17.
+    private int bits;
 
-        counts.put(null, 0);
-        counts.put(PIECE_X, 0);
-        counts.put(PIECE_O, 0);
+    // The base-3 index of the packed board (see Bitboard.index()), maintained with it.
+    private int code;
 
-        for (Boolean piece: board) {
-            int oldCount = counts.get(piece);
-            counts.replace(piece, oldCount+1);
-        }
+    // Incrementally maintained game state. See updateState() and tryMove().
+    private int numX;
+    private int numO;
+    private int numEmpty = Bitboard.CELLS;
+    private Boolean winner;
+    private Boolean nextPlayer = PIECE_X;
 
-        return counts;
-    }
+    // The moves made in this game, 4 bits per location, oldest first in the lowest bits.
+    // The first historySize moves are on the board; the rest, up to historyEnd, have been
+    // undone and may be redone.
+    private static final int HISTORY_BITS = 4;
+    private long history;
+    private int historySize;
+    private int historyEnd;
+
+    // Whether the end of this game has been reported to the installed Metrics, so that
+    // taking back the last move and making it again does not report the same game twice.
+    private boolean endReported;
 
     // Validates that the board is valid, and throws an appropriate exception if not.
-    private void validateBoard(Boolean[] board) throws InvalidBoardException {
+    private static void validateBoard(Boolean[] board) throws InvalidBoardException {
         if (board.length != 9) {
             throw new InvalidBoardException("board must have exactly 9 elements");
         }
 
-        Map<Boolean, Integer> numPieces = pieceCounts(board);
-        if (numPieces.get(PIECE_X) - numPieces.get(PIECE_O) > 1) {
+        int numX = 0, numO = 0;
+        for (Boolean piece: board) {
+            if (piece == null) continue;
+            if (piece) numO++;
+            else numX++;
+        }
+        if (numX - numO > 1) {
             throw new InvalidBoardException("'X' has moved out of turn");
         }
-        if (numPieces.get(PIECE_O) - numPieces.get(PIECE_X) > 0) {
+        if (numO - numX > 0) {
             throw new InvalidBoardException("'O' has moved out of turn");
         }
     }
 
+    // Recomputes all of the incrementally maintained state from the packed board.
+    private void updateState() {
+        code = Bitboard.index(bits);
+        numX = Integer.bitCount(Bitboard.xMask(bits));
+        numO = Integer.bitCount(Bitboard.oMask(bits));
+        numEmpty = Bitboard.CELLS - numX - numO;
+
+        winner = Bitboard.winner(bits);
+
+        updateNextPlayer();
+    }
+
+    // Recomputes the next player from the winner and piece counts.
+    private void updateNextPlayer() {
+        if (winner != null || numEmpty == 0) nextPlayer = null;
+        else nextPlayer = numX > numO ? PIECE_O : PIECE_X;
+    }
+
     /**
      * Start a new game with an empty board.
      */
@@ -92,24 +127,163 @@ public class Game {
      */
     public Game(Boolean[] board) throws InvalidBoardException {
         validateBoard(board);
-        this.board = board;
+        this.bits = Bitboard.pack(board);
+        updateState();
     }
 
+    /**
+     * Get the current game board.
+     *
+     * The returned array is a copy; modifying it does not affect the game.
+     *
+     * @return a newly allocated 9-element board array
+     */
     public final Boolean[] getBoard() {
-        return board;
-    }
-
-    // Helper method for findWinner().
-    // If all the indexed board spaces are equal, return that value;
-    // otherwise, return null.
-    private Boolean winnerForSeq(int[] idxs) {
-        Boolean winner = null;
-        for(int i: idxs) {
-            if (board[i] == null) return null;
-            else if (winner == null) winner = board[i];
-            else if (winner != board[i]) return null;
+        return Bitboard.unpack(bits);
+    }
+
+    // Clears the board, so that this object can be reused for a new game.
+    void reset() {
+        bits = 0;
+        updateState();
+        clearHistory();
+        endReported = false;
+    }
+
+    private void clearHistory() {
+        history = 0;
+        historySize = 0;
+        historyEnd = 0;
+    }
+
+    /**
+     * Take a snapshot of the current board.
+     *
+     * A snapshot is a single {@code int}, which can be kept as long as needed and
+     * later passed to {@code restore()}, on this or any other {@code Game}, to
+     * return to the same board. Its value should otherwise be treated as opaque.
+     *
+     * @return a snapshot of the board
+     */
+    public int snapshot() {
+        return bits;
+    }
+
+    /**
+     * Restore the board from a snapshot.
+     *
+     * This takes constant time. The move history is cleared, so the restored
+     * board cannot be undone.
+     *
+     * @param snapshot a snapshot previously returned by {@code snapshot()}
+     * @throws IllegalArgumentException if {@code snapshot} is not a valid snapshot
+     */
+    public void restore(int snapshot) {
+        final int x = Bitboard.xMask(snapshot), o = Bitboard.oMask(snapshot);
+        final int balance = Integer.bitCount(x) - Integer.bitCount(o);
+        if ((x | o << Bitboard.O_SHIFT) != snapshot || (x & o) != 0 || balance < 0 || balance > 1) {
+            throw new IllegalArgumentException("invalid snapshot: " + snapshot);
         }
-        return winner;
+
+        bits = snapshot;
+        updateState();
+        clearHistory();
+        endReported = false;
+    }
+
+    /**
+     * Encode the current board as a dense integer code.
+     *
+     * The code is a perfect hash of the board, suitable as a key or array index:
+     * each location is a base-3 digit (0 for empty, 1 for X, 2 for O), with
+     * location 0 as the least significant digit, so every board has a distinct
+     * code in {@code [0, CODES)}. The code is kept up to date as moves are made
+     * and taken back, so this takes constant time.
+     *
+     * @return the code for the board
+     */
+    public int encode() {
+        return code;
+    }
+
+    /**
+     * Create a game from a board code returned by {@code encode()}.
+     *
+     * Only the piece counts are checked, rather than the whole board, so this
+     * takes constant time. The game has no move history.
+     *
+     * @param code a code previously returned by {@code encode()}
+     * @return a new game with the encoded board
+     * @throws IllegalArgumentException if {@code code} is not the code of a board
+     * on which the players have taken turns
+     */
+    public static Game decode(int code) {
+        final int bits = code >= 0 && code < CODES ? Bitboard.fromIndex(code) : 0;
+        final int balance = Integer.bitCount(Bitboard.xMask(bits)) - Integer.bitCount(Bitboard.oMask(bits));
+        if (code < 0 || code >= CODES || balance < 0 || balance > 1) {
+            throw new IllegalArgumentException("invalid code: " + code);
+        }
+
+        Game game = new Game();
+        game.bits = bits;
+        game.updateState();
+        return game;
+    }
+
+    /**
+     * Take back the last move made in this game.
+     *
+     * This takes constant time. The move may be made again with {@code redo()},
+     * until a different move is made.
+     *
+     * @return true if a move was taken back; false if no moves have been made
+     * (moves made before the board was restored cannot be undone)
+     */
+    public boolean undo() {
+        if (historySize == 0) return false;
+
+        historySize--;
+        final int idx = historyAt(historySize);
+        final boolean pieceO = (bits & Bitboard.bit(true, idx)) != 0;
+
+        bits &= ~Bitboard.bit(pieceO, idx);
+        code -= Bitboard.digit(pieceO, idx);
+        if (pieceO) numO--;
+        else numX--;
+        numEmpty++;
+        winner = null; // no move can have been made after a win
+        nextPlayer = pieceO ? PIECE_O : PIECE_X;
+
+        return true;
+    }
+
+    /**
+     * Make the last move taken back by {@code undo()} again.
+     *
+     * @return true if a move was made; false if there is no move to redo
+     */
+    public boolean redo() {
+        if (historySize == historyEnd) return false;
+
+        apply(nextPlayer, historyAt(historySize));
+        historySize++;
+
+        return true;
+    }
+
+    // The number of moves on the board that were made in this game, and so can be undone.
+    int moveCount() {
+        return historySize;
+    }
+
+    // The location of the i'th move on the board that was made in this game.
+    int historyAt(int i) {
+        return (int) (history >>> (HISTORY_BITS * i)) & ((1 << HISTORY_BITS) - 1);
+    }
+
+    // The packed board, for use by other classes in this package. See Bitboard.
+    int packedBoard() {
+        return bits;
     }
 
     /**
@@ -121,21 +295,7 @@ public class Game {
      * has won the game; or {@code null} if no winner has been declared.
      */
     public Boolean findWinner() {
-        int[][] winningSeqs = {
-            {0, 1, 2},
-            {3, 4, 5},
-            {6, 7, 8},
-            {0, 3, 6},
-            {1, 4, 7},
-            {2, 5, 8},
-            {0, 4, 8},
-            {2, 4, 6},
-        };
-        for (int[] seq: winningSeqs) {
-            Boolean winner = winnerForSeq(seq);
-            if (winner != null) return winner;
-        }
-        return null;
+        return winner;
     }
 
     /**
@@ -148,17 +308,7 @@ public class Game {
      * player should move next; or {@code null} if the game is over.
      */
     public Boolean findNextPlayer() {
-        if (findWinner() != null) return null;
-
-        Map<Boolean, Integer> counts = pieceCounts(board);
-
-        if (counts.get(null) == 0) return null; // draw
-
-        if (counts.get(PIECE_X) > counts.get(PIECE_O)) {
-            return PIECE_O;
-        } else {
-            return PIECE_X;
-        }
+        return nextPlayer;
     }
 
     /**
@@ -181,30 +331,126 @@ public class Game {
      * specified space.
      */
     public void move(Boolean piece, int idx) throws InvalidMoveException {
-        try {
-            if (piece == null) throw new InvalidMoveException("piece must be specified", piece, idx);
-
-            final Boolean winner = findWinner();
-            if (winner != null) {
-                throw new InvalidMoveException(pieceName(winner) + " has already won", piece, idx);
-            }
-
-            final Boolean nextPlayer = findNextPlayer();
-            if (nextPlayer == null) {
-                throw new InvalidMoveException("the game is a draw", piece, idx);
-            }
-            if (nextPlayer != piece) {
-                throw new InvalidMoveException(pieceName(piece) + " has moved out of turn", piece, idx);
-            }
-
-            if (board[idx] != null) throw new InvalidMoveException("the space is already occupied", piece, idx);
-
-            board[idx] = piece;
-        } catch (ArrayIndexOutOfBoundsException e) {
-            throw new InvalidMoveException("invalid location", e, piece, idx);
+        final MoveResult result = tryMove(piece, idx);
+        if (result != MoveResult.OK) {
+            throw new InvalidMoveException(result.getMessage(piece, winner), piece, idx);
         }
     }
 
+    /**
+     * Attempt to move a player's piece onto a space on the board, without throwing.
+     *
+     * This checks the move exactly as {@code move()} does, but reports an
+     * invalid move by returning the reason, rather than by throwing an
+     * {@code InvalidMoveException}. The board is changed only if the move is valid.
+     * Every attempt is reported to the installed {@code Metrics}, as is the end
+     * of the game, once, even if its last move is taken back and made again.
+     *
+     * @param piece The player to move: {@code Game.PIECE_X} or {@code Game.PIECE_O}.
+     * @param idx The space onto which the player would like to move.
+     * @return {@code MoveResult.OK} if the move was made; otherwise, the reason it was rejected
+     */
+    public MoveResult tryMove(Boolean piece, int idx) {
+        final MoveResult result = playMove(piece, idx);
+        final Metrics metrics = Metrics.installed();
+        if (result != MoveResult.OK) {
+            metrics.moveRejected(result);
+            return result;
+        }
+
+        metrics.moveApplied();
+        if (nextPlayer == null && !endReported) {
+            endReported = true;
+            metrics.gameOver(winner);
+        }
+        return MoveResult.OK;
+    }
+
+    // Makes a move as tryMove() does, but without reporting it to the installed Metrics,
+    // so that simulated games and replays in this package are not counted as gameplay.
+    MoveResult playMove(Boolean piece, int idx) {
+        final MoveResult result = checkMove(piece, idx);
+        if (result != MoveResult.OK) return result;
+
+        apply(piece, idx);
+
+        // Record the move, discarding any moves that could have been redone.
+        final int shift = HISTORY_BITS * historySize;
+        history = history & ((1L << shift) - 1) | (long) idx << shift;
+        historySize++;
+        historyEnd = historySize;
+
+        return MoveResult.OK;
+    }
+
+    // Checks whether a move is valid, without making it.
+    private MoveResult checkMove(Boolean piece, int idx) {
+        if (piece == null) return MoveResult.NO_PIECE;
+        if (winner != null) return MoveResult.ALREADY_WON;
+        if (nextPlayer == null) return MoveResult.DRAW;
+        if (nextPlayer != piece) return MoveResult.OUT_OF_TURN;
+        if (idx < 0 || idx >= Bitboard.CELLS) return MoveResult.INVALID_LOCATION;
+        if ((Bitboard.occupied(bits) & (1 << idx)) != 0) return MoveResult.OCCUPIED;
+        return MoveResult.OK;
+    }
+
+    // Applies a move that is known to be valid.
+    private void apply(Boolean piece, int idx) {
+        bits |= Bitboard.bit(piece, idx);
+        code += Bitboard.digit(piece, idx);
+
+        // Only the player who just moved can have completed a line.
+        if (piece) numO++;
+        else numX++;
+        numEmpty--;
+        if (Bitboard.isWinning(Bitboard.mask(bits, piece))) winner = piece;
+        updateNextPlayer();
+    }
+
+    /**
+     * Find out whether the next player may move onto a space.
+     *
+     * @param idx the space to check
+     * @return true if the game is in progress and {@code idx} is an empty space on the board
+     */
+    public boolean isLegal(int idx) {
+        return idx >= 0 && idx < Bitboard.CELLS && (legalMovesMask() & (1 << idx)) != 0;
+    }
+
+    /**
+     * Find all the spaces onto which the next player may move.
+     *
+     * @return a bitmask in which bit {@code i} is set if the next player may move
+     * onto space {@code i}; or {@code 0} if the game is over
+     */
+    public int legalMovesMask() {
+        return nextPlayer == null ? 0 : Bitboard.empty(bits);
+    }
+
+    /**
+     * Iterate over the spaces onto which the next player may move.
+     *
+     * The iterator is a snapshot: it is not affected by later moves.
+     *
+     * @return an iterator over the legal moves, from lowest location to highest;
+     * empty if the game is over
+     */
+    public MoveIterator legalMoves() {
+        return new MoveIterator(legalMovesMask());
+    }
+
+    /**
+     * Iterate over the spaces onto which the next player may move, reusing an iterator.
+     *
+     * The iterator is a snapshot: it is not affected by later moves.
+     *
+     * @param moves the iterator to reset
+     * @return {@code moves}, reset to the legal moves, from lowest location to highest
+     */
+    public MoveIterator legalMoves(MoveIterator moves) {
+        return moves.reset(legalMovesMask());
+    }
+
     /**
      * Finds the human-readable name of the specified piece value.
      * @param piece {@code Game.PIECE_X}, {@code Game.PIECE_O}, or {@code null}
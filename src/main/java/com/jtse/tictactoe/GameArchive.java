@@ -0,0 +1,343 @@
+package com.jtse.tictactoe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.LongStream;
+import java.util.zip.CRC32;
+
+/**
+ * Random access to the games in a record file (see {@code GameRecordWriter}).
+ *
+ * The record file is memory-mapped, and since every record is the same size,
+ * game number {@code n} is found at a fixed offset, without any scanning.
+ *
+ * To find the games that reach a given position, the archive keeps an
+ * inverted index in a second file, alongside the record file, with the same
+ * name plus {@code ".idx"}. For each position, the index lists the numbers of
+ * the games that reach it, in increasing order. Each game is listed under every
+ * position it reaches after its first move, up to the end of the game. The
+ * index is memory-mapped too; it is built when the archive is opened if it
+ * does not exist or does not match the record file. The index stores the number
+ * of games, the record file's last-modified time, and a CRC-32 checksum of the
+ * last 64 KB of records, which are checked each time the archive is opened, so
+ * an index is rebuilt if games have been appended or the record file has been
+ * rewritten, without reading the whole file. The index also stores a checksum of
+ * every record, which is checked only when the archive is opened with
+ * {@code verify}, to catch changes that those cheap checks miss.
+ *
+ * Archives and indexes larger than 2 GB are mapped in several segments.
+ */
+public class GameArchive implements Closeable {
+    // Index file layout: the header, then the game count, the record file's last-modified
+    // time, the checksum of the last records, and the checksum of all the records, then for
+    // each base-3 board index the position of its first posting (plus one final end
+    // position), then the postings.
+    private static final byte[] INDEX_HEADER = {'T', 'T', 'T', 'I', 3, 0, 0, 0};
+    private static final int COUNT_OFFSET = INDEX_HEADER.length;
+    private static final int MODIFIED_OFFSET = COUNT_OFFSET + Long.BYTES;
+    private static final int TAIL_CHECKSUM_OFFSET = MODIFIED_OFFSET + Long.BYTES;
+    private static final int CHECKSUM_OFFSET = TAIL_CHECKSUM_OFFSET + Long.BYTES;
+    private static final int OFFSETS_OFFSET = CHECKSUM_OFFSET + Long.BYTES;
+    private static final int POSTINGS_OFFSET = OFFSETS_OFFSET + (Bitboard.INDEXES + 1) * Long.BYTES;
+
+    // The default segment sizes, in records and in postings, each a little under 1 GB.
+    private static final int RECORDS_PER_SEGMENT = 1 << 28;
+    private static final int POSTINGS_PER_SEGMENT = 1 << 28;
+
+    // How much of the end of the record file is checked each time the archive is opened.
+    private static final int TAIL_BYTES = 1 << 16;
+
+    private final Path path;
+    private final long size;
+    private final int recordsPerSegment;
+    private final int postingsPerSegment;
+    private final MappedByteBuffer[] records;
+    private final long modified;
+    private final long tailChecksum;
+    private final long[] offsets = new long[Bitboard.INDEXES + 1];
+    private MappedByteBuffer[] postings;
+
+    /**
+     * Open an archive of a record file, building its index if necessary.
+     *
+     * The index is checked against the record file without reading every record.
+     *
+     * @param path the record file
+     * @return the archive
+     * @throws IOException if the record file or its index cannot be read, or the index cannot be built
+     */
+    public static GameArchive open(Path path) throws IOException {
+        return open(path, false);
+    }
+
+    /**
+     * Open an archive of a record file, building its index if necessary.
+     *
+     * @param path the record file
+     * @param verify whether to check the index against every record, rather than
+     * only against the record file's size, last-modified time, and last records
+     * @return the archive
+     * @throws IOException if the record file or its index cannot be read, or the index cannot be built
+     */
+    public static GameArchive open(Path path, boolean verify) throws IOException {
+        return new GameArchive(path, verify, RECORDS_PER_SEGMENT, POSTINGS_PER_SEGMENT);
+    }
+
+    // Opens an archive, mapping records and postings in segments of the given sizes.
+    GameArchive(Path path, boolean verify, int recordsPerSegment, int postingsPerSegment) throws IOException {
+        this.path = path;
+        this.recordsPerSegment = recordsPerSegment;
+        this.postingsPerSegment = postingsPerSegment;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            GameRecordReader.checkHeader(channel, path.toString());
+            final long length = channel.size() - GameRecordWriter.HEADER.length;
+            if (length % GameRecords.RECORD_BYTES != 0) {
+                throw new IOException(path + ": ends with a partial record");
+            }
+            size = length / GameRecords.RECORD_BYTES;
+            records = map(channel, FileChannel.MapMode.READ_ONLY, GameRecordWriter.HEADER.length,
+                    size, recordsPerSegment, GameRecords.RECORD_BYTES);
+            modified = Files.getLastModifiedTime(path).toMillis();
+            tailChecksum = tailChecksum(channel);
+        }
+
+        if (!loadIndex(verify)) buildIndex();
+    }
+
+    // Maps a region of a file in segments of at most perSegment elements of the given size.
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode,
+                                          long start, long elements, int perSegment, int elementSize)
+            throws IOException {
+        MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((elements + perSegment - 1) / perSegment)];
+        for (int i = 0; i < segments.length; i++) {
+            final long first = (long) i * perSegment;
+            final long count = Math.min(perSegment, elements - first);
+            segments[i] = channel.map(mode, start + first * elementSize, count * elementSize);
+        }
+        return segments;
+    }
+
+    // Finds the CRC-32 checksum of the last records, at most TAIL_BYTES of them.
+    private long tailChecksum(FileChannel channel) throws IOException {
+        final long start = Math.max(GameRecordWriter.HEADER.length, channel.size() - TAIL_BYTES);
+        ByteBuffer tail = ByteBuffer.allocate((int) (channel.size() - start));
+        while (tail.hasRemaining()) {
+            if (channel.read(tail, start + tail.position()) < 0) throw new IOException(path + ": truncated while opening");
+        }
+        tail.flip();
+
+        final CRC32 crc = new CRC32();
+        crc.update(tail);
+        return crc.getValue();
+    }
+
+    // Finds the CRC-32 checksum of all the records, which identifies the games the index covers.
+    private static long checksum(MappedByteBuffer[] records) {
+        final CRC32 crc = new CRC32();
+        for (MappedByteBuffer segment: records) crc.update(segment.duplicate());
+        return crc.getValue();
+    }
+
+    private Path indexPath() {
+        return path.resolveSibling(path.getFileName() + ".idx");
+    }
+
+    // Loads the index, if there is one for the games in the archive, checking every record
+    // only if verify is set.
+    private boolean loadIndex(boolean verify) throws IOException {
+        final Path indexPath = indexPath();
+        if (!Files.exists(indexPath)) return false;
+
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            if (channel.size() < POSTINGS_OFFSET) return false;
+            ByteBuffer header = ByteBuffer.allocate(POSTINGS_OFFSET);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) return false;
+            }
+            header.flip();
+
+            for (byte b: INDEX_HEADER) {
+                if (header.get() != b) return false;
+            }
+            if (header.getLong() != size) return false;
+            if (header.getLong() != modified) return false;
+            if (header.getLong() != tailChecksum) return false;
+            final long checksum = header.getLong();
+            if (verify && checksum != checksum(records)) return false;
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = header.getLong();
+            }
+
+            final long numPostings = offsets[Bitboard.INDEXES];
+            if (channel.size() != POSTINGS_OFFSET + numPostings * Integer.BYTES) return false;
+            postings = map(channel, FileChannel.MapMode.READ_ONLY, POSTINGS_OFFSET,
+                    numPostings, postingsPerSegment, Integer.BYTES);
+        }
+        return true;
+    }
+
+    // Builds the index in two passes over the archive: the first counts the postings for
+    // each position, and the second stores them. The index is written to a temporary file,
+    // which replaces any existing index once it is complete.
+    private void buildIndex() throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(path + ": too many games to index");
+        }
+
+        final long[] counts = new long[Bitboard.INDEXES];
+        final int[] positions = new int[Bitboard.CELLS];
+        for (long n = 0; n < size; n++) {
+            final int numPositions = positions(record(n), positions);
+            for (int i = 0; i < numPositions; i++) counts[positions[i]]++;
+        }
+
+        offsets[0] = 0;
+        for (int i = 0; i < Bitboard.INDEXES; i++) {
+            offsets[i + 1] = offsets[i] + counts[i];
+        }
+        final long numPostings = offsets[Bitboard.INDEXES];
+
+        final Path tempPath = indexPath().resolveSibling(indexPath().getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(POSTINGS_OFFSET);
+            header.put(INDEX_HEADER).putLong(size).putLong(modified).putLong(tailChecksum)
+                    .putLong(checksum(records));
+            for (long offset: offsets) header.putLong(offset);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+
+            postings = map(channel, FileChannel.MapMode.READ_WRITE, POSTINGS_OFFSET,
+                    numPostings, postingsPerSegment, Integer.BYTES);
+
+            final long[] next = new long[Bitboard.INDEXES];
+            System.arraycopy(offsets, 0, next, 0, next.length);
+            for (long n = 0; n < size; n++) {
+                final int numPositions = positions(record(n), positions);
+                for (int i = 0; i < numPositions; i++) {
+                    putPosting(next[positions[i]]++, (int) n);
+                }
+            }
+            for (MappedByteBuffer segment: postings) segment.force();
+        }
+        Files.move(tempPath, indexPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Stores the base-3 indexes of the positions a record reaches after each move, up to
+    // the end of the game, and returns how many there are.
+    private static int positions(int record, int[] positions) {
+        final int numMoves = GameRecords.decode(record, positions);
+        int bits = 0;
+        for (int i = 0; i < numMoves; i++) {
+            final boolean pieceO = (i & 1) != 0;
+            bits |= Bitboard.bit(pieceO, positions[i]);
+            positions[i] = Bitboard.index(bits);
+            if (Bitboard.isWinning(Bitboard.mask(bits, pieceO))) return i + 1;
+        }
+        return numMoves;
+    }
+
+    private void putPosting(long i, int game) {
+        postings[(int) (i / postingsPerSegment)].putInt((int) (i % postingsPerSegment) * Integer.BYTES, game);
+    }
+
+    private int getPosting(long i) {
+        return postings[(int) (i / postingsPerSegment)].getInt((int) (i % postingsPerSegment) * Integer.BYTES);
+    }
+
+    /**
+     * @return the number of games in the archive
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Get a game's record.
+     *
+     * @param n the game number, from 0 to {@code size() - 1}
+     * @return the record (see {@code GameRecords})
+     * @throws IndexOutOfBoundsException if there is no game {@code n}
+     * @throws IllegalStateException if the record is not valid
+     */
+    public int record(long n) {
+        if (n < 0 || n >= size) throw new IndexOutOfBoundsException("no game " + n);
+        final ByteBuffer segment = records[(int) (n / recordsPerSegment)];
+        final int offset = (int) (n % recordsPerSegment) * GameRecords.RECORD_BYTES;
+        final int record = (segment.get(offset) & 0xff) << 16
+                | (segment.get(offset + 1) & 0xff) << 8
+                | (segment.get(offset + 2) & 0xff);
+        if (record >= GameRecords.RECORDS) throw new IllegalStateException(path + ": invalid record for game " + n);
+        return record;
+    }
+
+    /**
+     * Rebuild a game from the archive.
+     *
+     * @param n the game number, from 0 to {@code size() - 1}
+     * @return the game, with its full move history
+     * @throws IndexOutOfBoundsException if there is no game {@code n}
+     * @throws IllegalStateException if the record is not valid
+     */
+    public Game game(long n) {
+        Game game = new Game();
+        if (!GameRecords.replay(record(n), game)) {
+            throw new IllegalStateException(path + ": game " + n + " continues after the game is over");
+        }
+        return game;
+    }
+
+    /**
+     * Count the games that reach a position.
+     *
+     * This takes constant time.
+     *
+     * @param position a game whose board is the position to look for
+     * @return the number of games in the archive that reach the position
+     */
+    public long countGamesReaching(Game position) {
+        final int bits = position.packedBoard();
+        if (bits == 0) return size; // every game starts from the empty board
+
+        final int index = position.encode();
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Find the games that reach a position.
+     *
+     * The game numbers are read from the index as the stream is consumed.
+     *
+     * @param position a game whose board is the position to look for
+     * @return the numbers of the games in the archive that reach the position, in increasing order
+     */
+    public LongStream gamesReaching(Game position) {
+        final int bits = position.packedBoard();
+        if (bits == 0) return LongStream.range(0, size); // every game starts from the empty board
+
+        final int index = position.encode();
+        return LongStream.range(offsets[index], offsets[index + 1]).map(this::getPosting);
+    }
+
+    /**
+     * Release the archive.
+     *
+     * Mapped files are unmapped when they are garbage-collected; after closing,
+     * the archive must no longer be used.
+     */
+    @Override
+    public void close() {
+        postings = null;
+        for (int i = 0; i < records.length; i++) records[i] = null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.jtse.tictactoe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads games from a record file written by {@code GameRecordWriter}.
+ *
+ * Records are read through a fixed-size buffer, so files of any size can be
+ * scanned without loading them into memory.
+ */
+public class GameRecordReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final String name;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private boolean endOfChannel;
+
+    /**
+     * Start reading a record file from a channel, checking its header.
+     *
+     * @param channel the channel from which to read; it is closed when the reader is closed
+     * @param name the name of the record file, for error messages
+     * @throws IOException if the header cannot be read or is not a record file header
+     */
+    public GameRecordReader(ReadableByteChannel channel, String name) throws IOException {
+        this.channel = channel;
+        this.name = name;
+        checkHeader(channel, name);
+        buffer.flip(); // start empty
+    }
+
+    /**
+     * Open a record file for reading.
+     *
+     * @param path the record file
+     * @return a reader for the file
+     * @throws IOException if the file cannot be opened or is not a record file
+     */
+    public static GameRecordReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new GameRecordReader(channel, path.toString());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Reads and checks the header from the current position of a channel.
+    static void checkHeader(ReadableByteChannel channel, String name) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(GameRecordWriter.HEADER.length);
+        while (header.hasRemaining()) {
+            if (channel.read(header) < 0) throw new IOException(name + ": not a game record file");
+        }
+        header.flip();
+        if (!header.equals(ByteBuffer.wrap(GameRecordWriter.HEADER))) {
+            throw new IOException(name + ": not a game record file");
+        }
+    }
+
+    /**
+     * Read the next record.
+     *
+     * @return the record (see {@code GameRecords}); or {@code -1} at the end of the file
+     * @throws IOException if the record cannot be read, or is incomplete or invalid
+     */
+    public int nextRecord() throws IOException {
+        if (buffer.remaining() < GameRecords.RECORD_BYTES && !fill()) return -1;
+
+        final int record = (buffer.get() & 0xff) << 16 | (buffer.get() & 0xff) << 8 | (buffer.get() & 0xff);
+        if (record >= GameRecords.RECORDS) throw new IOException(name + ": invalid record " + record);
+        return record;
+    }
+
+    /**
+     * Read the next record, and replay it into a game.
+     *
+     * @param game the game into which to replay the record (see {@code GameRecords.replay()})
+     * @return true if a game was read; false at the end of the file
+     * @throws IOException if the record cannot be read, or is incomplete or invalid
+     */
+    public boolean next(Game game) throws IOException {
+        final int record = nextRecord();
+        if (record < 0) return false;
+        if (!GameRecords.replay(record, game)) {
+            throw new IOException(name + ": record " + record + " continues after the game is over");
+        }
+        return true;
+    }
+
+    // Refills the buffer until it holds a whole record.
+    // Returns false at a clean end of file, between records.
+    private boolean fill() throws IOException {
+        buffer.compact();
+        try {
+            while (buffer.position() < GameRecords.RECORD_BYTES && !endOfChannel) {
+                if (channel.read(buffer) < 0) endOfChannel = true;
+            }
+        } finally {
+            buffer.flip();
+        }
+        if (buffer.remaining() >= GameRecords.RECORD_BYTES) return true;
+        if (buffer.hasRemaining()) throw new IOException(name + ": ends with a partial record");
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,123 @@
+package com.jtse.tictactoe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes games to a record file.
+ *
+ * A record file is a 5-byte header ({@code HEADER}) followed by any number of
+ * records (see {@code GameRecords}), each stored as {@code GameRecords.RECORD_BYTES}
+ * bytes, big-endian. Records are buffered, so the file is only complete once
+ * the writer is flushed or closed.
+ */
+public class GameRecordWriter implements Closeable {
+    /**
+     * The header at the start of every record file: the magic number "TTTR" and format version 1.
+     */
+    static final byte[] HEADER = {'T', 'T', 'T', 'R', 1};
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Start a new record file on a channel, writing its header.
+     *
+     * @param channel the channel to which to write; it is closed when the writer is closed
+     * @throws IOException if the header cannot be written
+     */
+    public GameRecordWriter(WritableByteChannel channel) throws IOException {
+        this(channel, true);
+    }
+
+    private GameRecordWriter(WritableByteChannel channel, boolean writeHeader) throws IOException {
+        this.channel = channel;
+        if (writeHeader) buffer.put(HEADER);
+    }
+
+    /**
+     * Open a record file for appending, creating it if it does not exist.
+     *
+     * @param path the record file
+     * @return a writer that appends to the file
+     * @throws IOException if the file cannot be opened, or exists but is not a record file
+     */
+    public static GameRecordWriter append(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            final long size = channel.size();
+            if (size > 0) {
+                GameRecordReader.checkHeader(channel, path.toString());
+                if ((size - HEADER.length) % GameRecords.RECORD_BYTES != 0) {
+                    throw new IOException(path + ": ends with a partial record");
+                }
+            }
+            channel.position(size);
+            return new GameRecordWriter(channel, size == 0);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Write a game's record.
+     *
+     * @param game a game played from an empty board
+     * @throws IOException if the record cannot be written
+     * @throws IllegalArgumentException if the game's moves are not known (see {@code GameRecords.encode()})
+     */
+    public void write(Game game) throws IOException {
+        writeRecord(GameRecords.encode(game));
+    }
+
+    /**
+     * Write a record.
+     *
+     * @param record a record (see {@code GameRecords})
+     * @throws IOException if the record cannot be written
+     * @throws IllegalArgumentException if {@code record} is not a valid record
+     */
+    public void writeRecord(int record) throws IOException {
+        if (record < 0 || record >= GameRecords.RECORDS) {
+            throw new IllegalArgumentException("invalid record: " + record);
+        }
+        if (buffer.remaining() < GameRecords.RECORD_BYTES) flush();
+        buffer.put((byte) (record >>> 16)).put((byte) (record >>> 8)).put((byte) record);
+    }
+
+    /**
+     * Write all buffered records to the channel.
+     *
+     * @throws IOException if the records cannot be written
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flush the buffered records and close the channel.
+     *
+     * @throws IOException if the records cannot be written or the channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.jtse.tictactoe;
+
+/**
+ * A compact encoding of games as records.
+ *
+ * A record is the sequence of moves that produced a game from an empty board.
+ * Since no location can be played twice, a sequence of up to 9 moves is a
+ * partial permutation of the 9 locations, and there are only 986,410 of them.
+ * Each one is encoded as its ordinal: sequences are ordered first by length,
+ * and then lexicographically by location. Every record therefore fits in
+ * {@code RECORD_BITS} bits, and is stored in {@code RECORD_BYTES} bytes by
+ * {@code GameRecordWriter}.
+ */
+public final class GameRecords {
+    private GameRecords() {}
+
+    /**
+     * The number of distinct records.
+     */
+    public static final int RECORDS = 986410;
+
+    /**
+     * The number of bits needed to hold any record.
+     */
+    public static final int RECORD_BITS = 20;
+
+    /**
+     * The number of bytes in which a record is stored.
+     */
+    public static final int RECORD_BYTES = 3;
+
+    // OFFSETS[n] is the ordinal of the first sequence of n moves. OFFSETS[CELLS + 1] is RECORDS.
+    private static final int[] OFFSETS = new int[Bitboard.CELLS + 2];
+    static {
+        int sequences = 1; // the number of sequences of n moves
+        for (int n = 0; n <= Bitboard.CELLS; n++) {
+            OFFSETS[n + 1] = OFFSETS[n] + sequences;
+            sequences *= Bitboard.CELLS - n;
+        }
+    }
+
+    /**
+     * Encode a game as a record.
+     *
+     * @param game a game played from an empty board
+     * @return the record
+     * @throws IllegalArgumentException if the game's board was restored,
+     * rather than played from an empty board, so its moves are not known
+     */
+    public static int encode(Game game) {
+        final int numMoves = game.moveCount();
+        if (numMoves != Integer.bitCount(Bitboard.occupied(game.packedBoard()))) {
+            throw new IllegalArgumentException("game was not played from an empty board");
+        }
+
+        // Each move is a digit in a mixed-radix number: its position among the locations
+        // still empty when it was played.
+        int rank = 0;
+        int empty = Bitboard.FULL;
+        for (int i = 0; i < numMoves; i++) {
+            final int idx = game.historyAt(i);
+            rank = rank * (Bitboard.CELLS - i) + Integer.bitCount(empty & ((1 << idx) - 1));
+            empty &= ~(1 << idx);
+        }
+        return OFFSETS[numMoves] + rank;
+    }
+
+    /**
+     * @return the number of moves in a record
+     * @throws IllegalArgumentException if {@code record} is not a valid record
+     */
+    public static int moveCount(int record) {
+        if (record < 0 || record >= RECORDS) throw new IllegalArgumentException("invalid record: " + record);
+        int n = 0;
+        while (record >= OFFSETS[n + 1]) n++;
+        return n;
+    }
+
+    /**
+     * Decode the moves of a record.
+     *
+     * @param record the record
+     * @param moves an array of at least 9 elements, into which the moves are stored
+     * @return the number of moves stored
+     * @throws IllegalArgumentException if {@code record} is not a valid record
+     */
+    public static int decode(int record, int[] moves) {
+        final int numMoves = moveCount(record);
+
+        // Extract the mixed-radix digits, last move first.
+        int rank = record - OFFSETS[numMoves];
+        for (int i = numMoves - 1; i >= 0; i--) {
+            final int radix = Bitboard.CELLS - i;
+            moves[i] = rank % radix;
+            rank /= radix;
+        }
+
+        // Turn each digit into the location it selects from those still empty.
+        int empty = Bitboard.FULL;
+        for (int i = 0; i < numMoves; i++) {
+            int remaining = empty;
+            for (int d = moves[i]; d > 0; d--) remaining &= remaining - 1;
+            moves[i] = Integer.numberOfTrailingZeros(remaining);
+            empty &= ~(1 << moves[i]);
+        }
+        return numMoves;
+    }
+
+    /**
+     * Replay a record into a game.
+     *
+     * The game is cleared, and then each move is made as by {@code Game.tryMove()},
+     * so the replayed game has the record's full move history. Replayed moves
+     * are not reported to the installed {@code Metrics}.
+     *
+     * @param record the record
+     * @param game the game into which to replay the record
+     * @return true if every move was valid; false if the record has a move after
+     * the game was won, in which case the game holds the moves up to that point
+     * @throws IllegalArgumentException if {@code record} is not a valid record
+     */
+    public static boolean replay(int record, Game game) {
+        final int numMoves = moveCount(record);
+
+        int rank = record - OFFSETS[numMoves];
+        int divisor = 1; // the place value of the first move's digit
+        for (int i = 1; i < numMoves; i++) divisor *= Bitboard.CELLS - i;
+
+        game.reset();
+        int empty = Bitboard.FULL;
+        for (int i = 0; i < numMoves; i++) {
+            int remaining = empty;
+            for (int d = rank / divisor; d > 0; d--) remaining &= remaining - 1;
+            final int idx = Integer.numberOfTrailingZeros(remaining);
+            if (game.playMove(game.findNextPlayer(), idx) != MoveResult.OK) return false;
+
+            empty &= ~(1 << idx);
+            rank %= divisor;
+            if (i + 1 < numMoves) divisor /= Bitboard.CELLS - (i + 1);
+        }
+        return true;
+    }
+}
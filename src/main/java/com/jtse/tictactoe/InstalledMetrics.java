@@ -0,0 +1,8 @@
+package com.jtse.tictactoe;
+
+// Holds the metrics installed by Metrics.install(), since an interface cannot have mutable fields.
+final class InstalledMetrics {
+    private InstalledMetrics() {}
+
+    static volatile Metrics metrics = Metrics.NONE;
+}
@@ -2,19 +2,24 @@ package com.jtse.tictactoe;
 
 /**
  * An invalid move was attempted.
+ *
+ * Invalid moves are an expected part of play, so this exception does not
+ * record a stack trace, which would otherwise dominate the cost of throwing it.
+ * Callers that expect many invalid moves can avoid the exception entirely
+ * with {@code Game.tryMove()}.
  */
 public class InvalidMoveException extends Exception {
     private final Boolean piece;
     private final int idx;
 
     public InvalidMoveException(String message, Boolean piece, int idx) {
-        super(message);
+        super(message, null, false, false);
         this.piece = piece;
         this.idx = idx;
     }
 
     public InvalidMoveException(String message, Throwable cause, Boolean piece, int idx) {
-        super(message, cause);
+        super(message, cause, false, false);
         this.piece = piece;
         this.idx = idx;
     }
@@ -0,0 +1,232 @@
+package com.jtse.tictactoe;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Metrics that count every measurement, and export the counts over JMX.
+ *
+ * Counts are kept in {@code LongAdder}s, so that threads reporting at the same
+ * time do not contend. Once registered (see {@code register()}), the counts
+ * appear as read-only attributes of a single MBean:
+ * <ul>
+ *     <li><tt>MovesApplied</tt> - the number of moves made</li>
+ *     <li><tt>InvalidMoves.<em>REASON</em></tt> - the number of moves rejected,
+ *     for each {@code MoveResult} other than {@code OK}</li>
+ *     <li><tt>XWins</tt>, <tt>OWins</tt>, <tt>Draws</tt> - the number of games finished</li>
+ *     <li><tt>Commands.<em>COMMAND</em></tt>, <tt>CommandNanos.<em>COMMAND</em></tt>,
+ *     <tt>CommandMaxNanos.<em>COMMAND</em></tt> - the number of REPL commands
+ *     evaluated, and their total and greatest latencies in nanoseconds, for each
+ *     {@code Metrics.Command}</li>
+ * </ul>
+ *
+ * This class is thread-safe.
+ */
+public class JmxMetrics implements Metrics, DynamicMBean {
+    /**
+     * The name under which {@code register()} registers the MBean.
+     */
+    public static final String OBJECT_NAME = "com.jtse.tictactoe:type=Metrics";
+
+    private static final MoveResult[] REASONS = MoveResult.values();
+    private static final Metrics.Command[] COMMANDS = Metrics.Command.values();
+
+    private final LongAdder movesApplied = new LongAdder();
+    private final LongAdder[] invalidMoves = adders(REASONS.length);
+    private final LongAdder xWins = new LongAdder();
+    private final LongAdder oWins = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+    private final LongAdder[] commands = adders(COMMANDS.length);
+    private final LongAdder[] commandNanos = adders(COMMANDS.length);
+    private final LongAccumulator[] commandMaxNanos = new LongAccumulator[COMMANDS.length];
+
+    // The MBean attributes, in the order they are listed.
+    private final Map<String, LongSupplier> attributes = new LinkedHashMap<>();
+
+    public JmxMetrics() {
+        attributes.put("MovesApplied", movesApplied::sum);
+        for (MoveResult reason: REASONS) {
+            if (reason != MoveResult.OK) attributes.put("InvalidMoves." + reason, invalidMoves[reason.ordinal()]::sum);
+        }
+        attributes.put("XWins", xWins::sum);
+        attributes.put("OWins", oWins::sum);
+        attributes.put("Draws", draws::sum);
+        for (Metrics.Command command: COMMANDS) {
+            final int i = command.ordinal();
+            commandMaxNanos[i] = new LongAccumulator(Math::max, 0);
+            attributes.put("Commands." + command, commands[i]::sum);
+            attributes.put("CommandNanos." + command, commandNanos[i]::sum);
+            attributes.put("CommandMaxNanos." + command, commandMaxNanos[i]::get);
+        }
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) adders[i] = new LongAdder();
+        return adders;
+    }
+
+    /**
+     * Register this MBean with the platform MBean server, under {@code OBJECT_NAME}.
+     *
+     * @throws JMException if the MBean cannot be registered (for example, because
+     * another MBean is already registered under the same name)
+     */
+    public void register() throws JMException {
+        register(ManagementFactory.getPlatformMBeanServer(), new ObjectName(OBJECT_NAME));
+    }
+
+    /**
+     * Register this MBean with an MBean server.
+     *
+     * @param server the MBean server
+     * @param name the name under which to register
+     * @throws JMException if the MBean cannot be registered
+     */
+    public void register(MBeanServer server, ObjectName name) throws JMException {
+        server.registerMBean(this, name);
+    }
+
+    @Override
+    public void moveApplied() {
+        movesApplied.increment();
+    }
+
+    @Override
+    public void moveRejected(MoveResult reason) {
+        invalidMoves[reason.ordinal()].increment();
+    }
+
+    @Override
+    public void gameOver(Boolean winner) {
+        if (winner == null) draws.increment();
+        else if (winner == Game.PIECE_X) xWins.increment();
+        else oWins.increment();
+    }
+
+    @Override
+    public void commandCompleted(Metrics.Command command, long nanos) {
+        final int i = command.ordinal();
+        commands[i].increment();
+        commandNanos[i].add(nanos);
+        commandMaxNanos[i].accumulate(nanos);
+    }
+
+    /**
+     * @return the number of moves made
+     */
+    public long getMovesApplied() {
+        return movesApplied.sum();
+    }
+
+    /**
+     * @return the number of moves rejected for a reason
+     */
+    public long getInvalidMoves(MoveResult reason) {
+        return invalidMoves[reason.ordinal()].sum();
+    }
+
+    /**
+     * @return the number of games won by X
+     */
+    public long getXWins() {
+        return xWins.sum();
+    }
+
+    /**
+     * @return the number of games won by O
+     */
+    public long getOWins() {
+        return oWins.sum();
+    }
+
+    /**
+     * @return the number of games drawn
+     */
+    public long getDraws() {
+        return draws.sum();
+    }
+
+    /**
+     * @return the number of REPL commands of a kind evaluated
+     */
+    public long getCommands(Metrics.Command command) {
+        return commands[command.ordinal()].sum();
+    }
+
+    /**
+     * @return the total time taken by REPL commands of a kind, in nanoseconds
+     */
+    public long getCommandNanos(Metrics.Command command) {
+        return commandNanos[command.ordinal()].sum();
+    }
+
+    /**
+     * @return the greatest time taken by any REPL command of a kind, in nanoseconds
+     */
+    public long getCommandMaxNanos(Metrics.Command command) {
+        return commandMaxNanos[command.ordinal()].get();
+    }
+
+
+    // DynamicMBean
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        final LongSupplier supplier = attributes.get(attribute);
+        if (supplier == null) throw new AttributeNotFoundException(attribute);
+        return supplier.getAsLong();
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        AttributeList list = new AttributeList();
+        for (String name: names) {
+            final LongSupplier supplier = attributes.get(name);
+            if (supplier != null) list.add(new Attribute(name, supplier.getAsLong()));
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList(); // every attribute is read-only
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName)); // there are no operations
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> infos = new ArrayList<>();
+        for (String name: attributes.keySet()) {
+            infos.add(new MBeanAttributeInfo(name, "long", name, true, false, false));
+        }
+        return new MBeanInfo(getClass().getName(), "Tic-Tac-Toe gameplay and REPL command metrics",
+                infos.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+    }
+}
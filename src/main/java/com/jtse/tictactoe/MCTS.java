@@ -0,0 +1,311 @@
+package com.jtse.tictactoe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A Monte Carlo Tree Search player, for games too large to solve exhaustively.
+ *
+ * The search grows a tree of positions from the current one, choosing which
+ * branch to explore with UCT (the UCB1 bound applied to trees), adding one new
+ * position per iteration, and scoring it by playing the game out with uniformly
+ * random moves. The move chosen is the one explored most often.
+ *
+ * Searches are tree-parallel: every thread of the pool works on one shared tree.
+ * A thread counts a visit to each position as soon as it selects it, before its
+ * playout has been scored (a "virtual loss"), so that threads searching at the
+ * same time are steered towards different branches. Playouts are made on a
+ * private copy of the packed board, which is reused, so they do not allocate;
+ * only the tree itself grows.
+ *
+ * A search stops when either its iteration budget or its time budget is spent,
+ * but always makes at least one iteration, so there is always a move to choose.
+ * With a single thread and no effective time limit, the search (and so the move
+ * chosen) depends only on the {@code Random} passed to {@code chooseMove()}.
+ *
+ * This class is thread-safe, and may be used as a {@code MovePolicy}.
+ */
+public class MCTS implements MovePolicy {
+    // The exploration constant of UCT, sqrt(2).
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    // Scores are counted in half-points: a win scores 2, a draw 1, and a loss 0.
+    private static final int WIN = 2;
+    private static final int DRAW = 1;
+
+    // The number of iterations between checks of the time budget.
+    private static final int TIME_CHECK_INTERVAL = 64;
+
+    private final int maxIterations;
+    private final long maxNanos;
+    private final ForkJoinPool pool;
+
+    /**
+     * Construct a player that searches on the common {@code ForkJoinPool}.
+     *
+     * @param maxIterations the most iterations to search for each move
+     * @param maxTime the longest time to search for each move
+     * @param unit the unit of {@code maxTime}
+     * @throws IllegalArgumentException if either budget is less than 1
+     */
+    public MCTS(int maxIterations, long maxTime, TimeUnit unit) {
+        this(maxIterations, maxTime, unit, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construct a player that searches with one thread for each thread of a pool.
+     *
+     * @param maxIterations the most iterations to search for each move
+     * @param maxTime the longest time to search for each move
+     * @param unit the unit of {@code maxTime}
+     * @param pool the pool on which to search
+     * @throws IllegalArgumentException if either budget is less than 1
+     */
+    public MCTS(int maxIterations, long maxTime, TimeUnit unit, ForkJoinPool pool) {
+        if (maxIterations < 1) throw new IllegalArgumentException("iteration budget must be at least 1");
+        if (maxTime < 1) throw new IllegalArgumentException("time budget must be at least 1");
+        this.maxIterations = maxIterations;
+        this.maxNanos = unit.toNanos(maxTime);
+        this.pool = pool;
+    }
+
+    /**
+     * Choose a move for the next player of a game of Tic-Tac-Toe.
+     *
+     * @param game a game in progress, which is not modified
+     * @param random the source of the search's randomness
+     * @return the location to which the next player should move
+     * @throws IllegalStateException if the game is over
+     */
+    @Override
+    public int chooseMove(Game game, Random random) {
+        if (game.findNextPlayer() == null) throw new IllegalStateException("the game is over");
+
+        // Replay the pieces alternately; since the game is not over, no line is completed early.
+        MNKGame mnkGame = new MNKGame(3, 3, 3);
+        final int bits = game.packedBoard();
+        int xMask = Bitboard.xMask(bits), oMask = Bitboard.oMask(bits);
+        while (xMask != 0) {
+            mnkGame.tryMove(Game.PIECE_X, Integer.numberOfTrailingZeros(xMask));
+            xMask &= xMask - 1;
+            if (oMask != 0) {
+                mnkGame.tryMove(Game.PIECE_O, Integer.numberOfTrailingZeros(oMask));
+                oMask &= oMask - 1;
+            }
+        }
+        return chooseMove(mnkGame, random);
+    }
+
+    /**
+     * Choose a move for the next player of an m,n,k-game.
+     *
+     * @param game a game in progress, which is not modified
+     * @param random the source of the search's randomness
+     * @return the location to which the next player should move
+     * @throws IllegalStateException if the game is over
+     */
+    public int chooseMove(MNKGame game, Random random) {
+        if (game.findNextPlayer() == null) throw new IllegalStateException("the game is over");
+
+        final Search search = new Search(game, System.nanoTime() + maxNanos);
+        final int workers = Math.max(1, pool.getParallelism());
+        List<Worker> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            tasks.add(new Worker(search, random.nextLong()));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(tasks);
+            }
+        });
+
+        // Choose the most visited move, which is more robust than the highest-scoring.
+        Node best = null;
+        for (Node child = search.root.children; child != null; child = child.next) {
+            if (best == null || child.visits > best.visits) best = child;
+        }
+        return best.move;
+    }
+
+    // A position in the search tree. Children are created one per visit, in the order
+    // of the empty locations, and kept in a linked list, newest first.
+    private static final class Node {
+        private static final AtomicIntegerFieldUpdater<Node> VISITS =
+                AtomicIntegerFieldUpdater.newUpdater(Node.class, "visits");
+        private static final AtomicLongFieldUpdater<Node> SCORE =
+                AtomicLongFieldUpdater.newUpdater(Node.class, "score");
+
+        final int move; // the location moved to, to reach this position
+        final Node next; // the next sibling
+
+        volatile Node children;
+        volatile int expanded; // the number of children
+        volatile int visits;
+        volatile long score; // for the player who moved to reach this position, in half-points
+
+        Node(int move, Node next) {
+            this.move = move;
+            this.next = next;
+        }
+    }
+
+    // The state shared by the workers of one search.
+    private final class Search {
+        final MNKGame game;
+        final Node root = new Node(-1, null);
+        final long deadline;
+        final AtomicLong iterations = new AtomicLong();
+
+        Search(MNKGame game, long deadline) {
+            this.game = game;
+            this.deadline = deadline;
+        }
+    }
+
+    // One thread's share of a search, with its own scratch board.
+    private final class Worker extends RecursiveAction {
+        private final Search search;
+        private final MNKGame game;
+        private final SplittableRandom random;
+        private final int cells;
+        private final long[] xBits;
+        private final long[] oBits;
+        private final Node[] path;
+        private final int[] empties;
+        private int numMoves;
+
+        Worker(Search search, long seed) {
+            this.search = search;
+            this.game = search.game;
+            this.random = new SplittableRandom(seed);
+            this.cells = game.getWidth() * game.getHeight();
+            this.xBits = new long[game.bits(false).length];
+            this.oBits = new long[xBits.length];
+            this.path = new Node[cells - game.moveCount() + 1];
+            this.empties = new int[cells];
+        }
+
+        @Override
+        protected void compute() {
+            for (long i = search.iterations.getAndIncrement(); i < maxIterations;
+                 i = search.iterations.getAndIncrement()) {
+                // The first iteration is always made, so the root has a child to choose.
+                if (i > 0 && i % TIME_CHECK_INTERVAL == 0 && System.nanoTime() - search.deadline > 0) {
+                    return;
+                }
+                iterate();
+            }
+        }
+
+        // Runs one iteration: selects a path down the tree, adding one node, plays out the
+        // game from there, and scores every node on the path.
+        private void iterate() {
+            System.arraycopy(game.bits(false), 0, xBits, 0, xBits.length);
+            System.arraycopy(game.bits(true), 0, oBits, 0, oBits.length);
+            numMoves = game.moveCount();
+
+            Node node = search.root;
+            Node.VISITS.incrementAndGet(node);
+            path[0] = node;
+            int depth = 1;
+            boolean pieceO = game.findNextPlayer();
+            Boolean winner = null;
+
+            while (numMoves < cells) {
+                final Node child = select(node);
+                Node.VISITS.incrementAndGet(child); // the virtual loss, until the playout is scored
+                path[depth++] = child;
+                node = child;
+                if (play(pieceO, child.move)) {
+                    winner = pieceO;
+                    break;
+                }
+                pieceO = !pieceO;
+                if (child.visits == 1) break; // a new node: play out from here
+            }
+
+            if (winner == null && numMoves < cells) winner = playout(pieceO);
+
+            // The node at depth d was reached by a move of the player to move at the root
+            // if d is odd, or of the other player if d is even.
+            final boolean rootPieceO = game.findNextPlayer();
+            for (int d = 1; d < depth; d++) {
+                final boolean moverO = (d % 2 == 1) == rootPieceO;
+                final int reward = winner == null ? DRAW : winner == moverO ? WIN : 0;
+                if (reward != 0) Node.SCORE.addAndGet(path[d], reward);
+                path[d] = null;
+            }
+        }
+
+        // Chooses the child of a node to explore: a new child, if the node has untried moves,
+        // or else the child with the greatest UCT bound.
+        private Node select(Node node) {
+            final int legal = cells - numMoves;
+            if (node.expanded < legal) {
+                synchronized (node) {
+                    if (node.expanded < legal) {
+                        final Node child = new Node(nthEmpty(node.expanded), node.children);
+                        node.children = child;
+                        node.expanded++;
+                        return child;
+                    }
+                }
+            }
+
+            final double logVisits = Math.log(node.visits);
+            Node best = null;
+            double bestBound = Double.NEGATIVE_INFINITY;
+            for (Node child = node.children; child != null; child = child.next) {
+                final int visits = child.visits;
+                final double bound = visits == 0 ? Double.POSITIVE_INFINITY
+                        : child.score / (double) (WIN * visits) + EXPLORATION * Math.sqrt(logVisits / visits);
+                if (bound > bestBound) {
+                    bestBound = bound;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        // Finds the n'th empty location on the scratch board, counting from 0.
+        private int nthEmpty(int n) {
+            for (int idx = 0; ; idx++) {
+                if (!MNKGame.isSet(xBits, idx) && !MNKGame.isSet(oBits, idx) && n-- == 0) return idx;
+            }
+        }
+
+        // Moves on the scratch board, returning true if the move wins.
+        private boolean play(boolean pieceO, int idx) {
+            final long[] bits = pieceO ? oBits : xBits;
+            bits[idx >>> 6] |= 1L << idx;
+            numMoves++;
+            return game.completesLine(bits, idx);
+        }
+
+        // Plays the game out with random moves, returning the winner, or null for a draw.
+        private Boolean playout(boolean pieceO) {
+            int numEmpty = 0;
+            for (int idx = 0; idx < cells; idx++) {
+                if (!MNKGame.isSet(xBits, idx) && !MNKGame.isSet(oBits, idx)) empties[numEmpty++] = idx;
+            }
+            while (numEmpty > 0) {
+                final int i = random.nextInt(numEmpty);
+                final int idx = empties[i];
+                empties[i] = empties[--numEmpty];
+                if (play(pieceO, idx)) return pieceO;
+                pieceO = !pieceO;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.jtse.tictactoe;
+
+/**
+ * A generalized game of Tic-Tac-Toe: an m,n,k-game.
+ *
+ * Players take turns placing pieces on a board {@code width} spaces wide and
+ * {@code height} spaces high, and the first player to place {@code k} (or more)
+ * pieces in a row, horizontally, vertically, or diagonally, wins. Ordinary
+ * Tic-Tac-Toe is the 3,3,3-game, which is what {@code Game} plays; this class
+ * plays larger variants, such as 15,15,5 (Gomoku).
+ *
+ * Pieces and locations follow the same conventions as {@code Game}: pieces are
+ * {@code Game.PIECE_X} and {@code Game.PIECE_O}, X moves first, and locations
+ * are numbered row by row from the top left, from 0 to {@code width * height - 1}.
+ *
+ * The board is packed into two bitsets, one per player, so even a 19x19 board
+ * takes only a few cache lines. Only the lines through the most recently placed
+ * piece can have been completed by a move, so checking for a win after a move
+ * takes time proportional to {@code k}, not to the size of the board.
+ */
+public class MNKGame {
+    // The 4 directions of a line, as (row, column) steps: across, down, and the two diagonals.
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    private final int width;
+    private final int height;
+    private final int k;
+    private final int cells;
+
+    // The packed board: one bit per location for each player.
+    private final long[] xBits;
+    private final long[] oBits;
+
+    private int numMoves;
+    private Boolean winner;
+    private Boolean nextPlayer = Game.PIECE_X;
+
+    /**
+     * Start a new game with an empty board.
+     *
+     * @param width the number of columns on the board
+     * @param height the number of rows on the board
+     * @param k the number of pieces in a row needed to win
+     * @throws IllegalArgumentException if any dimension is less than 1, or if
+     * {@code k} is greater than both the width and the height
+     */
+    public MNKGame(int width, int height, int k) {
+        if (width < 1 || height < 1 || k < 1) {
+            throw new IllegalArgumentException("width, height, and k must be at least 1");
+        }
+        if (k > width && k > height) {
+            throw new IllegalArgumentException("k must fit on the board");
+        }
+        if ((long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("board is too large");
+        }
+
+        this.width = width;
+        this.height = height;
+        this.k = k;
+        this.cells = width * height;
+        this.xBits = new long[(cells + 63) >>> 6];
+        this.oBits = new long[xBits.length];
+    }
+
+    /**
+     * @return the number of columns on the board
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the number of rows on the board
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the number of pieces in a row needed to win
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Get the current game board.
+     *
+     * @return a newly allocated array of {@code width * height} elements, each
+     * {@code Game.PIECE_X}, {@code Game.PIECE_O}, or {@code null} if empty
+     */
+    public Boolean[] getBoard() {
+        Boolean[] board = new Boolean[cells];
+        for (int idx = 0; idx < cells; idx++) {
+            board[idx] = pieceAt(idx);
+        }
+        return board;
+    }
+
+    /**
+     * Find the piece at a location on the board.
+     *
+     * @param idx the location
+     * @return {@code Game.PIECE_X}, {@code Game.PIECE_O}, or {@code null} if empty
+     * @throws IndexOutOfBoundsException if {@code idx} is not on the board
+     */
+    public Boolean pieceAt(int idx) {
+        if (idx < 0 || idx >= cells) throw new IndexOutOfBoundsException("invalid location: " + idx);
+        if (isSet(xBits, idx)) return Game.PIECE_X;
+        if (isSet(oBits, idx)) return Game.PIECE_O;
+        return null;
+    }
+
+    /**
+     * Find the winner of the game, if there is one.
+     *
+     * @return {@code Game.PIECE_X} or {@code Game.PIECE_O} if a player
+     * has won the game; or {@code null} if no winner has been declared.
+     */
+    public Boolean findWinner() {
+        return winner;
+    }
+
+    /**
+     * Figure out which player's move is next.
+     *
+     * @return {@code Game.PIECE_X} or {@code Game.PIECE_O} according to which
+     * player should move next; or {@code null} if the game is over.
+     */
+    public Boolean findNextPlayer() {
+        return nextPlayer;
+    }
+
+    /**
+     * Find out whether the next player may move onto a space.
+     *
+     * @param idx the space to check
+     * @return true if the game is in progress and {@code idx} is an empty space on the board
+     */
+    public boolean isLegal(int idx) {
+        return nextPlayer != null && idx >= 0 && idx < cells && !isSet(xBits, idx) && !isSet(oBits, idx);
+    }
+
+    /**
+     * Move a player's piece onto a space on the board.
+     *
+     * The move is checked as by {@code Game.move()}.
+     *
+     * @param piece The player to move: {@code Game.PIECE_X} or {@code Game.PIECE_O}.
+     * @param idx The space onto which the player would like to move.
+     * @throws InvalidMoveException if the specified piece cannot be moved onto the
+     * specified space.
+     */
+    public void move(Boolean piece, int idx) throws InvalidMoveException {
+        final MoveResult result = tryMove(piece, idx);
+        if (result != MoveResult.OK) {
+            throw new InvalidMoveException(result.getMessage(piece, winner), piece, idx);
+        }
+    }
+
+    /**
+     * Attempt to move a player's piece onto a space on the board, without throwing.
+     *
+     * The move is checked as by {@code Game.tryMove()}.
+     *
+     * @param piece The player to move: {@code Game.PIECE_X} or {@code Game.PIECE_O}.
+     * @param idx The space onto which the player would like to move.
+     * @return {@code MoveResult.OK} if the move was made; otherwise, the reason it was rejected
+     */
+    public MoveResult tryMove(Boolean piece, int idx) {
+        if (piece == null) return MoveResult.NO_PIECE;
+        if (winner != null) return MoveResult.ALREADY_WON;
+        if (nextPlayer == null) return MoveResult.DRAW;
+        if (nextPlayer != piece) return MoveResult.OUT_OF_TURN;
+        if (idx < 0 || idx >= cells) return MoveResult.INVALID_LOCATION;
+        if (isSet(xBits, idx) || isSet(oBits, idx)) return MoveResult.OCCUPIED;
+
+        final long[] bits = piece ? oBits : xBits;
+        bits[idx >>> 6] |= 1L << idx;
+        numMoves++;
+
+        if (completesLine(bits, idx)) winner = piece;
+        nextPlayer = winner != null || numMoves == cells ? null
+                : piece ? Game.PIECE_X : Game.PIECE_O;
+
+        return MoveResult.OK;
+    }
+
+    // The number of moves made, for use by other classes in this package.
+    int moveCount() {
+        return numMoves;
+    }
+
+    // One player's bitset, for use by other classes in this package, which must not modify it.
+    long[] bits(boolean pieceO) {
+        return pieceO ? oBits : xBits;
+    }
+
+    // Checks whether the piece at idx is part of k or more in a row,
+    // by counting along each line through it in both directions.
+    // The bitset may be any bitset for a board of this game's size.
+    boolean completesLine(long[] bits, int idx) {
+        final int row = idx / width;
+        final int col = idx % width;
+        for (int[] direction: DIRECTIONS) {
+            final int dr = direction[0], dc = direction[1];
+            final int count = 1
+                    + countFrom(bits, row, col, dr, dc)
+                    + countFrom(bits, row, col, -dr, -dc);
+            if (count >= k) return true;
+        }
+        return false;
+    }
+
+    // Counts the player's pieces in a row starting next to (row, col), in one direction,
+    // stopping after k - 1 pieces, since no more are needed to decide a win.
+    private int countFrom(long[] bits, int row, int col, int dr, int dc) {
+        int count = 0;
+        for (int r = row + dr, c = col + dc;
+             count < k - 1 && r >= 0 && r < height && c >= 0 && c < width && isSet(bits, r * width + c);
+             r += dr, c += dc) {
+            count++;
+        }
+        return count;
+    }
+
+    static boolean isSet(long[] bits, int idx) {
+        return (bits[idx >>> 6] & (1L << idx)) != 0;
+    }
+}
@@ -1,9 +1,47 @@
 package com.jtse.tictactoe;
 
+import javax.management.JMException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
 public class Main {
+    // The port on which the REPL server listens, if none is specified.
+    private static final int DEFAULT_PORT = 3333;
+
+    // The port on which the protocol server listens, if none is specified.
+    private static final int DEFAULT_PROTOCOL_PORT = 3334;
+
+    public static void main(String[] args) throws IOException, JMException {
+        if (args.length > 0 && args[0].equals("--jmx")) {
+            JmxMetrics metrics = new JmxMetrics();
+            metrics.register();
+            Metrics.install(metrics);
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+
+        if (args.length > 0 && args[0].equals("--server")) {
+            final int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+            REPLServer server = new REPLServer(new InetSocketAddress(port));
+            System.out.println("Listening on " + server.getLocalAddress());
+            server.run();
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals("--protocol")) {
+            final int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PROTOCOL_PORT;
+            ProtocolServer server = new ProtocolServer(new InetSocketAddress(port));
+            System.out.println("Listening on " + server.getLocalAddress());
+            server.run();
+            return;
+        }
 
-    public static void main(String[] args) {
 	    REPL repl = new REPL(System.in, System.out);
+        if (args.length > 0 && args[0].equals("--batch")) {
+            final boolean board = args.length > 1 && args[1].equals("board");
+            repl.runBatch(board ? REPL.BatchOutput.FINAL_BOARD : REPL.BatchOutput.RESULTS);
+            return;
+        }
 	    repl.run();
     }
 }
@@ -0,0 +1,79 @@
+package com.jtse.tictactoe;
+
+/**
+ * A receiver of measurements of gameplay and REPL commands.
+ *
+ * {@code Game}, {@code SharedGame}, and {@code REPL} report to the installed
+ * metrics (see {@code install()}), which by default is {@code NONE}, ignoring
+ * every measurement. Only gameplay is measured, including the games held by a
+ * {@code SessionRegistry}: the games played internally by {@code Simulator} and
+ * {@code Tournament}, or replayed from records, are not reported. Each method
+ * has an empty default implementation, so an implementation need only override
+ * the measurements it records. Methods are
+ * called on the threads playing the games, often on hot paths, so they
+ * should be quick and thread-safe.
+ *
+ * The reporting methods take only enum constants, piece constants, and
+ * primitives, so reporting to {@code NONE} does not allocate.
+ *
+ * @see JmxMetrics
+ */
+public interface Metrics {
+    /**
+     * The kinds of REPL commands. {@code INVALID} is any command that was not recognized.
+     */
+    enum Command {
+        NEW, MOVE, HINT, UNDO, REDO, AI, INVALID
+    }
+
+    /**
+     * Metrics that ignore every measurement.
+     */
+    Metrics NONE = new Metrics() {};
+
+    /**
+     * Install metrics to receive all measurements from now on.
+     *
+     * @param metrics the metrics to install; or {@code NONE} to stop measuring
+     */
+    static void install(Metrics metrics) {
+        InstalledMetrics.metrics = metrics;
+    }
+
+    /**
+     * @return the installed metrics
+     */
+    static Metrics installed() {
+        return InstalledMetrics.metrics;
+    }
+
+    /**
+     * A move was made, by {@code move()} or {@code tryMove()} of a {@code Game}
+     * or {@code SharedGame}.
+     */
+    default void moveApplied() {}
+
+    /**
+     * A move was rejected, by {@code move()} or {@code tryMove()} of a {@code Game}
+     * or {@code SharedGame}.
+     *
+     * @param reason the reason the move was rejected (never {@code MoveResult.OK})
+     */
+    default void moveRejected(MoveResult reason) {}
+
+    /**
+     * A move ended a game.
+     *
+     * @param winner {@code Game.PIECE_X} or {@code Game.PIECE_O} if a player
+     * won the game; or {@code null} if it is a draw
+     */
+    default void gameOver(Boolean winner) {}
+
+    /**
+     * A REPL command was evaluated, by {@code REPL.eval()}.
+     *
+     * @param command the kind of command
+     * @param nanos how long the command took to parse and execute, in nanoseconds
+     */
+    default void commandCompleted(Command command, long nanos) {}
+}
@@ -0,0 +1,78 @@
+package com.jtse.tictactoe;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Iterates over the locations in a bitmask of moves, such as one returned by
+ * {@code Game.legalMovesMask()}, from lowest to highest.
+ *
+ * Each step clears the lowest set bit of the remaining mask, so iteration
+ * neither boxes locations nor allocates. An iterator can be reused with
+ * {@code reset()}, so that a search allocates one iterator per level rather
+ * than one per position:
+ * <pre>
+ *     for (game.legalMoves(moves); moves.hasNext(); ) {
+ *         final int idx = moves.nextInt();
+ *         ...
+ *     }
+ * </pre>
+ *
+ * This class is not thread-safe.
+ */
+public final class MoveIterator implements PrimitiveIterator.OfInt {
+    private int remaining;
+
+    /**
+     * Create an iterator with no moves, to be filled in with {@code reset()}.
+     */
+    public MoveIterator() {
+    }
+
+    /**
+     * Create an iterator over a bitmask of moves.
+     *
+     * @param mask a bitmask in which bit {@code i} is set if {@code i} is a move
+     */
+    public MoveIterator(int mask) {
+        this.remaining = mask;
+    }
+
+    /**
+     * Restart the iterator with a new bitmask of moves.
+     *
+     * @param mask a bitmask in which bit {@code i} is set if {@code i} is a move
+     * @return this iterator
+     */
+    public MoveIterator reset(int mask) {
+        this.remaining = mask;
+        return this;
+    }
+
+    /**
+     * @return the bitmask of the moves not yet returned
+     */
+    public int remainingMask() {
+        return remaining;
+    }
+
+    /**
+     * @return the number of moves not yet returned
+     */
+    public int remainingCount() {
+        return Integer.bitCount(remaining);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return remaining != 0;
+    }
+
+    @Override
+    public int nextInt() {
+        if (remaining == 0) throw new NoSuchElementException();
+        final int idx = Integer.numberOfTrailingZeros(remaining);
+        remaining &= remaining - 1; // clear the lowest set bit
+        return idx;
+    }
+}
@@ -0,0 +1,56 @@
+package com.jtse.tictactoe;
+
+import java.util.Random;
+
+/**
+ * A strategy for choosing moves, used to play simulated games.
+ *
+ * Policies may be shared between threads, so implementations must be
+ * thread-safe. Any randomness should come from the {@code Random} passed
+ * to {@code chooseMove()}, which belongs to the calling thread.
+ */
+@FunctionalInterface
+public interface MovePolicy {
+    /**
+     * Choose a move for the next player.
+     *
+     * @param game a game in progress, which must not be modified
+     * @param random a source of randomness for the calling thread
+     * @return the location to which the next player will move, which must be empty
+     */
+    int chooseMove(Game game, Random random);
+
+    /**
+     * @return a policy that moves to a uniformly random empty location
+     */
+    static MovePolicy random() {
+        return (game, random) -> Bitboard.randomLocation(Bitboard.empty(game.packedBoard()), random);
+    }
+
+    /**
+     * @return a policy that plays perfectly, choosing randomly between equally good moves
+     */
+    static MovePolicy perfect() {
+        return (game, random) -> Bitboard.randomLocation(Solver.bestMoves(game), random);
+    }
+
+    /**
+     * Create a policy that plays by script.
+     *
+     * Each move is the first empty location in the script. If every location in
+     * the script is occupied, the move is the lowest-numbered empty location.
+     *
+     * @param locations the locations to move to, in order of preference
+     * @return a policy that plays the script
+     */
+    static MovePolicy scripted(int... locations) {
+        final int[] script = locations.clone();
+        return (game, random) -> {
+            final int empty = Bitboard.empty(game.packedBoard());
+            for (int idx: script) {
+                if (idx >= 0 && idx < Bitboard.CELLS && (empty & (1 << idx)) != 0) return idx;
+            }
+            return Integer.numberOfTrailingZeros(empty);
+        };
+    }
+}
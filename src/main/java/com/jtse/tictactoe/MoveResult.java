@@ -0,0 +1,63 @@
+package com.jtse.tictactoe;
+
+/**
+ * The result of attempting a move with {@code Game.tryMove()}.
+ *
+ * Every result other than {@code OK} is a reason the move was rejected,
+ * corresponding to one of the messages of {@code InvalidMoveException}.
+ */
+public enum MoveResult {
+    /**
+     * The move was valid and has been made.
+     */
+    OK,
+    /**
+     * The piece was {@code null}.
+     */
+    NO_PIECE,
+    /**
+     * The game has already been won.
+     */
+    ALREADY_WON,
+    /**
+     * The game is a draw.
+     */
+    DRAW,
+    /**
+     * It is the other player's turn.
+     */
+    OUT_OF_TURN,
+    /**
+     * The location is not on the board.
+     */
+    INVALID_LOCATION,
+    /**
+     * The location is already occupied.
+     */
+    OCCUPIED;
+
+    /**
+     * Describe the result in the words used by {@code Game.move()}.
+     *
+     * @param piece the piece that attempted to move
+     * @param winner the winner of the game, if any
+     * @return the message {@code Game.move()} would throw; or {@code null} for {@code OK}
+     */
+    public String getMessage(Boolean piece, Boolean winner) {
+        switch (this) {
+            case NO_PIECE:
+                return "piece must be specified";
+            case ALREADY_WON:
+                return Game.pieceName(winner) + " has already won";
+            case DRAW:
+                return "the game is a draw";
+            case OUT_OF_TURN:
+                return Game.pieceName(piece) + " has moved out of turn";
+            case INVALID_LOCATION:
+                return "invalid location";
+            case OCCUPIED:
+                return "the space is already occupied";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,122 @@
+package com.jtse.tictactoe;
+
+/**
+ * A precomputed table of perfect-play results for every legal position.
+ *
+ * The table holds one {@code int} entry for each of the 3^9 possible boards,
+ * indexed by the board's base-3 index (see {@code Bitboard.index()}). Only the
+ * 5,478 positions reachable from an empty board by legal play have entries;
+ * the rest are {@code 0}. Each entry packs:
+ * <ul>
+ *     <li>bits 0-8 - the bitmask of optimal moves for the next player</li>
+ *     <li>bits 9-12 - the number of moves until the game ends with perfect play</li>
+ *     <li>bits 13-17 - the value of the position (see {@code Solver}), offset by 16</li>
+ *     <li>bit 18 - set for every legal position</li>
+ * </ul>
+ *
+ * The table is built by {@code Solver} the first time it is used, so that
+ * the cost is only paid by programs that need it.
+ */
+final class PerfectPlayTable {
+    private PerfectPlayTable() {}
+
+    private static final int MOVES_MASK = Bitboard.FULL;
+    private static final int DISTANCE_SHIFT = 9;
+    private static final int DISTANCE_MASK = 0xf;
+    private static final int VALUE_SHIFT = 13;
+    private static final int VALUE_OFFSET = 16;
+    private static final int VALUE_MASK = 0x1f;
+    private static final int LEGAL = 1 << 18;
+
+    // Holds the table, so it is built lazily, on first use, by the class loader.
+    private static final class Holder {
+        static final int[] ENTRIES = build();
+    }
+
+    // Builds the table by visiting every position reachable from the empty board.
+    private static int[] build() {
+        int[] entries = new int[Bitboard.INDEXES];
+        visit(0, entries);
+        return entries;
+    }
+
+    private static void visit(int bits, int[] entries) {
+        final int index = Bitboard.index(bits);
+        if (entries[index] != 0) return;
+
+        final int value = Solver.searchValue(bits);
+        final int bestMoves = Solver.searchBestMoves(bits);
+        entries[index] = entry(bits, value, bestMoves);
+
+        if (bestMoves == 0) return; // the game is over
+
+        final boolean pieceO = Bitboard.isOToMove(bits);
+        for (int moves = Bitboard.empty(bits); moves != 0; moves &= moves - 1) {
+            visit(bits | Bitboard.bit(pieceO, Integer.numberOfTrailingZeros(moves)), entries);
+        }
+    }
+
+    // Packs an entry. A won game ends with |value| - 1 spaces left, and a drawn game
+    // always fills the board, so the distance to the end follows from the value.
+    private static int entry(int bits, int value, int bestMoves) {
+        final int empty = Integer.bitCount(Bitboard.empty(bits));
+        final int distance = value == 0 ? empty : empty - (Math.abs(value) - 1);
+        return LEGAL
+                | (value + VALUE_OFFSET) << VALUE_SHIFT
+                | distance << DISTANCE_SHIFT
+                | bestMoves;
+    }
+
+    /**
+     * @return the table entry for a packed board; or {@code 0} if it is not a legal position
+     */
+    static int entry(int bits) {
+        return Holder.ENTRIES[Bitboard.index(bits)];
+    }
+
+    /**
+     * @return the table entry for a base-3 board index; or {@code 0} if it is not a legal position
+     */
+    static int entryAt(int index) {
+        return Holder.ENTRIES[index];
+    }
+
+    /**
+     * @return true if the entry is for a position reachable from an empty board by legal play
+     */
+    static boolean isLegal(int entry) {
+        return (entry & LEGAL) != 0;
+    }
+
+    /**
+     * @return the perfect-play value in a legal entry, from X's point of view
+     */
+    static int value(int entry) {
+        return ((entry >>> VALUE_SHIFT) & VALUE_MASK) - VALUE_OFFSET;
+    }
+
+    /**
+     * @return the number of moves until the game ends in a legal entry
+     */
+    static int distanceToEnd(int entry) {
+        return (entry >>> DISTANCE_SHIFT) & DISTANCE_MASK;
+    }
+
+    /**
+     * @return the bitmask of optimal moves in a legal entry
+     */
+    static int bestMoves(int entry) {
+        return entry & MOVES_MASK;
+    }
+
+    /**
+     * @return the number of legal positions in the table
+     */
+    static int size() {
+        int size = 0;
+        for (int entry: Holder.ENTRIES) {
+            if (isLegal(entry)) size++;
+        }
+        return size;
+    }
+}
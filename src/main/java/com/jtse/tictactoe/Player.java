@@ -0,0 +1,45 @@
+package com.jtse.tictactoe;
+
+/**
+ * A named entrant in a {@code Tournament}: a move policy and the name under
+ * which its results are reported.
+ *
+ * Players are compared by identity, so the same policy may be entered more
+ * than once under different names.
+ */
+public final class Player {
+    private final String name;
+    private final MovePolicy policy;
+
+    /**
+     * Create a player.
+     *
+     * @param name the name under which the player's results are reported
+     * @param policy the policy by which the player chooses moves
+     * @throws NullPointerException if either argument is null
+     */
+    public Player(String name, MovePolicy policy) {
+        if (name == null || policy == null) throw new NullPointerException("name and policy are required");
+        this.name = name;
+        this.policy = policy;
+    }
+
+    /**
+     * @return the name under which the player's results are reported
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the policy by which the player chooses moves
+     */
+    public MovePolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,318 @@
+package com.jtse.tictactoe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * A network server for programs that play Tic-Tac-Toe, with one game per connection.
+ *
+ * Unlike {@code REPLServer}, which serves the human-readable REPL, this server
+ * speaks a compact binary protocol of fixed-size frames. Each request is one
+ * opcode byte, followed by operands for {@code OP_MOVE}:
+ * <ul>
+ *     <li>{@code OP_NEW} ({@code 'N'}) - start a new game</li>
+ *     <li>{@code OP_MOVE} ({@code 'M'}), piece, location - move a piece: the piece
+ *     byte is {@code 'X'} or {@code 'O'}, and the location is a signed byte, 0-8</li>
+ *     <li>{@code OP_STATUS} ({@code 'S'}) - report the game status</li>
+ *     <li>{@code OP_BOARD} ({@code 'B'}) - report the board</li>
+ * </ul>
+ *
+ * Every request is answered, in order, with a 4-byte big-endian response,
+ * which always carries the whole state of the game after the request:
+ * <ul>
+ *     <li>bits 0-17 - the board, as from {@code Game.snapshot()}: bit {@code i}
+ *     is set if X is at location {@code i}, and bit {@code 9 + i} if O is</li>
+ *     <li>bits 18-20 - the game status: one of the {@code STATUS_} constants</li>
+ *     <li>bits 24-31 - the result: for {@code OP_MOVE}, the ordinal of the
+ *     {@code MoveResult} ({@code 0} for {@code OK}); for other requests, {@code 0};
+ *     or {@code RESULT_INVALID_OP} for an unknown opcode, after which the
+ *     connection is closed</li>
+ * </ul>
+ *
+ * Requests may be pipelined: a client may send many requests without waiting
+ * for their responses. All connections are served by a single thread using a
+ * non-blocking NIO selector. Responses are encoded into a single direct
+ * buffer, shared by every connection, and written in bulk. Only responses that
+ * cannot be written immediately are copied into a buffer for their connection,
+ * so an idle connection holds only its game. While a connection's responses
+ * cannot be written, no more requests are read from it.
+ */
+public class ProtocolServer implements Runnable, Closeable {
+    /**
+     * Start a new game.
+     */
+    public static final byte OP_NEW = 'N';
+    /**
+     * Move a piece; followed by a piece byte and a location byte.
+     */
+    public static final byte OP_MOVE = 'M';
+    /**
+     * Report the game status.
+     */
+    public static final byte OP_STATUS = 'S';
+    /**
+     * Report the board.
+     */
+    public static final byte OP_BOARD = 'B';
+
+    /**
+     * The game is in progress, and X moves next.
+     */
+    public static final int STATUS_X_NEXT = 0;
+    /**
+     * The game is in progress, and O moves next.
+     */
+    public static final int STATUS_O_NEXT = 1;
+    /**
+     * X has won.
+     */
+    public static final int STATUS_X_WON = 2;
+    /**
+     * O has won.
+     */
+    public static final int STATUS_O_WON = 3;
+    /**
+     * The game is a draw.
+     */
+    public static final int STATUS_DRAW = 4;
+
+    /**
+     * The result of a request with an unknown opcode.
+     */
+    public static final int RESULT_INVALID_OP = 0xff;
+
+    /**
+     * The size of a response, in bytes.
+     */
+    public static final int RESPONSE_BYTES = 4;
+
+    private static final int STATUS_SHIFT = 18;
+    private static final int RESULT_SHIFT = 24;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(65536);
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(65536);
+
+    private volatile boolean closed;
+
+    // The state of one connection.
+    private static class Session {
+        final Game game = new Game();
+        final byte[] frame = new byte[2]; // the opcode and piece of a partially received move
+        int frameLength;
+        ByteBuffer pending; // output not yet written, if any
+        ByteBuffer unread;  // input received while output was pending, if any
+        boolean closing;    // close the connection once the output is written
+    }
+
+    /**
+     * Construct a server, listening on the specified address.
+     *
+     * The server does not accept connections until it is {@code run()}.
+     *
+     * @param address the address on which to listen; use port 0 for any free port
+     * @throws IOException if the server socket cannot be opened
+     */
+    public ProtocolServer(InetSocketAddress address) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * @return the address on which the server is listening
+     * @throws IOException if the address cannot be determined
+     */
+    public SocketAddress getLocalAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Find the response the server would send after a request, for a game's current state.
+     *
+     * @param game the game
+     * @param result the result of the request: a {@code MoveResult} ordinal, or {@code RESULT_INVALID_OP}
+     * @return the response
+     */
+    public static int response(Game game, int result) {
+        final Boolean winner = game.findWinner();
+        final Boolean nextPlayer = game.findNextPlayer();
+        final int status = winner != null ? (winner ? STATUS_O_WON : STATUS_X_WON)
+                : nextPlayer == null ? STATUS_DRAW
+                : nextPlayer ? STATUS_O_NEXT : STATUS_X_NEXT;
+        return result << RESULT_SHIFT | status << STATUS_SHIFT | game.snapshot();
+    }
+
+    /**
+     * Serve connections until the server is closed.
+     */
+    @Override
+    public void run() {
+        try {
+            while (!closed) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    try {
+                        if (key.isAcceptable()) accept();
+                        else if (key.isReadable()) read(key);
+                        else if (key.isWritable()) write(key);
+                    } catch (IOException e) {
+                        closeConnection(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) throw new IllegalStateException("server failed", e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Stop the server, closing all connections.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, new Session());
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+
+        readBuffer.clear();
+        if (channel.read(readBuffer) < 0) {
+            closeConnection(key);
+            return;
+        }
+        readBuffer.flip();
+        process(key, readBuffer);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Session session = (Session) key.attachment();
+        ((SocketChannel) key.channel()).write(session.pending);
+        if (session.pending.hasRemaining()) return;
+
+        session.pending = null;
+        if (session.closing) {
+            closeConnection(key);
+            return;
+        }
+        key.interestOps(SelectionKey.OP_READ);
+
+        // Resume processing any input that arrived while the output was pending.
+        ByteBuffer unread = session.unread;
+        session.unread = null;
+        if (unread != null) process(key, unread);
+    }
+
+    // Writes the responses in the shared write buffer to a connection, and clears the buffer.
+    // Returns true if they were all written; otherwise, the rest are kept as the connection's
+    // pending output.
+    private boolean flush(SelectionKey key) throws IOException {
+        writeBuffer.flip();
+        ((SocketChannel) key.channel()).write(writeBuffer);
+        final boolean written = !writeBuffer.hasRemaining();
+        if (!written) {
+            Session session = (Session) key.attachment();
+            session.pending = ByteBuffer.allocate(writeBuffer.remaining()).put(writeBuffer);
+            session.pending.flip();
+        }
+        writeBuffer.clear();
+        return written;
+    }
+
+    // Processes requests, encoding their responses into the shared write buffer, and writes
+    // the responses. If they cannot all be written immediately, the rest of the input is kept
+    // until they have been, and no more is read from the connection.
+    private void process(SelectionKey key, ByteBuffer input) throws IOException {
+        Session session = (Session) key.attachment();
+        writeBuffer.clear();
+        while (input.hasRemaining() && !session.closing) {
+            if (writeBuffer.remaining() < RESPONSE_BYTES && !flush(key)) {
+                session.unread = ByteBuffer.allocate(input.remaining()).put(input);
+                session.unread.flip();
+                key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+
+            final byte b = input.get();
+            if (session.frameLength == 0 && b != OP_MOVE) {
+                writeBuffer.putInt(respond(session, b));
+            } else if (session.frameLength < 2) {
+                session.frame[session.frameLength++] = b;
+            } else {
+                session.frameLength = 0;
+                writeBuffer.putInt(move(session, session.frame[1], b));
+            }
+        }
+
+        if (flush(key)) {
+            if (session.closing) closeConnection(key);
+        } else {
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+    }
+
+    // Responds to a request without operands.
+    private static int respond(Session session, byte op) {
+        switch (op) {
+            case OP_NEW:
+                session.game.reset();
+                return response(session.game, 0);
+            case OP_STATUS:
+            case OP_BOARD:
+                return response(session.game, 0);
+        }
+        session.closing = true;
+        return response(session.game, RESULT_INVALID_OP);
+    }
+
+    private static int move(Session session, byte pieceByte, int idx) {
+        final Boolean piece = pieceByte == 'X' ? Game.PIECE_X : pieceByte == 'O' ? Game.PIECE_O : null;
+        return response(session.game, session.game.tryMove(piece, idx).ordinal());
+    }
+
+    private void closeConnection(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // nothing more to do
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key: selector.keys()) {
+            closeConnection(key);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            // nothing more to do
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package com.jtse.tictactoe;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A simple REPL for a game of Tic-Tac-Toe.
@@ -14,17 +14,45 @@ import java.util.stream.Collectors;
  * <ul>
  *     <li><tt>new</tt> -  start a new game</li>
  *     <li><tt>move X 0</tt> - move X (or O) to location 0 (through 8)</li>
+ *     <li><tt>hint</tt> - show the best moves for the next player</li>
+ *     <li><tt>undo</tt> - take back the last move</li>
+ *     <li><tt>redo</tt> - make the last move taken back again</li>
+ *     <li><tt>ai</tt> - let the computer move for the next player</li>
  *     <li><tt>exit</tt> - exit the REPL</li>
  * </ul>
  *
  * All commands are case-insensitive.
  */
 public class REPL implements Runnable {
+    /**
+     * What {@code runBatch()} writes.
+     */
+    public enum BatchOutput {
+        /**
+         * One line per command: {@code OK}, or the error message.
+         */
+        RESULTS,
+        /**
+         * Only the final board and game status, after every command has been run.
+         */
+        FINAL_BOARD
+    }
+
+    // The sizes of the buffers used by runBatch(). The input buffer grows if a line does not fit.
+    private static final int BATCH_BUFFER_SIZE = 1 << 16;
+
     final InputStream in;
     final PrintStream out;
 
     private Game game = new Game();
 
+    // The player for the ai command, and its source of randomness.
+    private static final MCTS AI = new MCTS(20_000, 1, TimeUnit.SECONDS);
+    private final Random random = new Random();
+
+    // Parses the commands passed to eval(), reused for each one.
+    private final CommandParser parser = new CommandParser();
+
     /**
      * Construct a new REPL, specifying the in and out streams.
      *
@@ -39,83 +67,60 @@ public class REPL implements Runnable {
         this.out = out;
     }
 
-
-    // Command classes for REPL commands.
-
-    private class NewCommand implements Callable<String> {
-        @Override
-        public String call() {
-            game = new Game();
-            return null;
-        }
+    // Construct a REPL without streams, for evaluating commands that arrive by
+    // some other means (see REPLServer). Such a REPL cannot run().
+    REPL() {
+        this(null, null);
     }
 
-    private class MoveCommand implements Callable<String> {
-        final Scanner s;
 
-        MoveCommand(Scanner s) {
-            this.s = s;
-        }
+    // Command implementations, used by eval() and runBatch(). Each returns null if
+    // the command succeeded, or else an error message.
 
-        @Override
-        public String call() {
-            Boolean piece;
-            try {
-                String pieceSymbol = s.next("[xo]");
-                piece = pieceSymbol.equals("x") ? Game.PIECE_X : Game.PIECE_O;
-            } catch (NoSuchElementException e) {
-                return "move: " + s.next() + " is not a valid piece (must be X or O)";
-            }
+    private String newGame() {
+        game = new Game();
+        return null;
+    }
 
-            int idx;
-            try {
-                idx = s.nextInt();
-            } catch (NoSuchElementException e) {
-                return "move: " + s.next() + " is not a valid location (must be between 0 and 8)";
-            }
+    private String move(Boolean piece, int idx) {
+        final MoveResult result = game.tryMove(piece, idx);
+        return result.getMessage(piece, game.findWinner());
+    }
 
-            try {
-                game.move(piece, idx);
-            } catch (InvalidMoveException e) {
-                return e.getMessage();
-            }
+    private String hint() {
+        final Boolean nextPlayer = game.findNextPlayer();
+        if (nextPlayer == null) return "hint: the game is over";
 
-            return null;
+        List<String> locations = new ArrayList<>();
+        for (int moves = Solver.bestMoves(game); moves != 0; moves &= moves - 1) {
+            locations.add(Integer.toString(Integer.numberOfTrailingZeros(moves)));
         }
-    }
 
-    private static class InvalidCommand implements Callable<String> {
-        final String name;
+        final int value = Solver.value(game);
+        final String outcome = value == 0 ? "the game is a draw"
+                : (value > 0) == (nextPlayer == Game.PIECE_X) ? Game.pieceName(nextPlayer) + " wins"
+                : Game.pieceName(nextPlayer) + " loses";
 
-        InvalidCommand(String name) {
-            this.name = name;
-        }
+        return "hint: " + Game.pieceName(nextPlayer) + " should move to "
+                + String.join(", ", locations) + " (with perfect play, " + outcome + ")";
+    }
 
-        @Override
-        public String call() {
-            return "Invalid command: " + name;
-        }
+    private String undo() {
+        return game.undo() ? null : "undo: there is no move to undo";
     }
 
-    // Parse a command, returning an initialized version of the
-    // corresponding command class. Any parse errors will be
-    // returned when the command is called.
-    private Callable<String> parseCommand(String commandStr) {
-        Scanner s = new Scanner(commandStr.toLowerCase());
-        String commandName = s.next();
-        switch (commandName) {
-            case "new":
-                return new NewCommand();
-            case "move":
-                return new MoveCommand(s);
-        }
-        return new InvalidCommand(commandName);
+    private String redo() {
+        return game.redo() ? null : "redo: there is no move to redo";
     }
 
-    // Draws an individual piece: "X", "O", or " "
-    private String drawPiece(Boolean piece) {
-        return piece == null ? " "
-                : piece == Game.PIECE_X ? "X" : "O";
+    private String ai() {
+        final Boolean nextPlayer = game.findNextPlayer();
+        if (nextPlayer == null) return "ai: the game is over";
+
+        final int idx = AI.chooseMove(game, random);
+        final MoveResult result = game.tryMove(nextPlayer, idx);
+        if (result != MoveResult.OK) return "ai: " + result.getMessage(nextPlayer, game.findWinner());
+        return "ai: " + Game.pieceName(nextPlayer) + " moves to " + idx;
     }
 
     /**
@@ -127,20 +132,20 @@ public class REPL implements Runnable {
      * @return a monospace-printable representation current game board
      */
     public String drawBoard() {
-        final String space = "  ";  // 2 spaces before each line
-
-        final Boolean[] board = game.getBoard();
-
-        List<String> rows = new ArrayList<>();
-        for (int i = 0; i < board.length; i += 3) {
-            String row = Arrays.stream(board, i, i+3)
-                    .map(this::drawPiece)
-                    .map(s -> " "+s+" ")
-                    .collect(Collectors.joining("|"));
-            rows.add(space + row + "\n");
-        }
+        return BoardRenderer.render(game.packedBoard());
+    }
 
-        return String.join(space+"---+---+---\n", rows);
+    /**
+     * Draw the current game board as ASCII art, appending it to a {@code StringBuilder}.
+     *
+     * This produces exactly the same text as {@code drawBoard()}. Once a given
+     * board has been drawn, drawing it again does not allocate, as long as
+     * {@code out} has room for it.
+     *
+     * @param out the builder to which the board is appended
+     */
+    public void drawBoard(StringBuilder out) {
+        out.append(BoardRenderer.render(game.packedBoard()));
     }
 
     /**
@@ -165,22 +170,160 @@ public class REPL implements Runnable {
     /**
      * Evaluate a game command.
      *
-     * This involves parsing the command and executing it.
+     * This involves parsing the command and executing it. The time taken is
+     * reported to the installed {@code Metrics}.
      *
      * @param commandStr the command to be evaluated
      * @return the result of the command (usually "OK")
      * @throws Exception if something goes wrong during execution of the command
      */
     public String eval(String commandStr) throws Exception {
-        List<String> messages = new ArrayList<>();
+        return eval((CharSequence) commandStr);
+    }
 
-        String message = parseCommand(commandStr).call();
+    /**
+     * Evaluate a game command, parsing it directly from a sequence of characters.
+     *
+     * This is the same as {@code eval(String)}, but a command held in a
+     * {@code StringBuilder} or other buffer need not be copied into a string first.
+     *
+     * @param commandStr the command to be evaluated
+     * @return the result of the command (usually "OK")
+     * @throws Exception if something goes wrong during execution of the command
+     */
+    public String eval(CharSequence commandStr) throws Exception {
+        final long start = System.nanoTime();
+        parser.parse(commandStr);
+        if (parser.exit) return "Invalid command: exit"; // only run() and runBatch() can exit
+        if (parser.command == null) { // a blank line is not a command (only runBatch() skips it)
+            Metrics.installed().commandCompleted(Metrics.Command.INVALID, System.nanoTime() - start);
+            return "Invalid command: ";
+        }
+
+        String message = execute(parser);
+        Metrics.installed().commandCompleted(parser.command, System.nanoTime() - start);
 
         if (message == null || message.isEmpty()) message = "OK";
 
         return message;
     }
 
+    /**
+     * Run a batch of commands, as fast as they can be read.
+     *
+     * Commands are read in bulk from the input stream, one per line, and run in
+     * order, until the end of the input or the command <tt>exit</tt>. Blank lines
+     * are ignored. Unlike {@code run()}, this does not draw the board or status
+     * after each command; it writes only what {@code output} asks for.
+     *
+     * Lines are parsed directly from the bytes read, without decoding them or
+     * otherwise allocating, and results are written in bulk.
+     *
+     * @param output what to write
+     * @throws IOException if the input cannot be read
+     */
+    public void runBatch(BatchOutput output) throws IOException {
+        final CommandParser parser = new CommandParser();
+        final CommandParser.ByteChars line = new CommandParser.ByteChars();
+        final BatchWriter writer = new BatchWriter();
+
+        byte[] input = new byte[BATCH_BUFFER_SIZE];
+        int start = 0; // the start of the current line
+        int scanned = 0; // the end of the part of the current line already searched for a newline
+        int end = 0; // the end of the input read
+        boolean eof = false;
+
+        while (true) {
+            int newline = scanned;
+            while (newline < end && input[newline] != '\n') newline++;
+            scanned = newline;
+
+            if (newline == end && !eof) {
+                // Make room for more input, moving the current line to the start of the buffer.
+                if (start > 0) {
+                    System.arraycopy(input, start, input, 0, end - start);
+                    end -= start;
+                    scanned -= start;
+                    start = 0;
+                } else if (end == input.length) {
+                    input = Arrays.copyOf(input, input.length * 2);
+                }
+                final int count = in.read(input, end, input.length - end);
+                if (count < 0) eof = true;
+                else end += count;
+                continue;
+            }
+            if (start == end) break; // eof, with no partial line left
+
+            int lineEnd = newline;
+            if (lineEnd > start && input[lineEnd - 1] == '\r') lineEnd--;
+            parser.parse(line.wrap(input, start, lineEnd - start));
+            start = scanned = Math.min(newline + 1, end);
+
+            if (parser.exit) break;
+            if (parser.command == null) continue; // blank
+
+            final long commandStart = System.nanoTime();
+            final String message = execute(parser);
+            Metrics.installed().commandCompleted(parser.command, System.nanoTime() - commandStart);
+
+            if (output == BatchOutput.RESULTS) writer.writeLine(message == null ? "OK" : message);
+        }
+
+        if (output == BatchOutput.FINAL_BOARD) {
+            writer.write(drawBoard());
+            writer.writeLine(""); // a blank line after the board, as run() prints
+            writer.writeLine(findGameStatus());
+        }
+        writer.flush();
+    }
+
+    // Runs a parsed command, returning null if it succeeded, or else an error message.
+    private String execute(CommandParser parser) {
+        if (parser.error != null) return parser.error;
+
+        switch (parser.command) {
+            case NEW:
+                return newGame();
+            case MOVE:
+                return move(parser.piece, parser.location);
+            case HINT:
+                return hint();
+            case UNDO:
+                return undo();
+            case REDO:
+                return redo();
+            case AI:
+                return ai();
+        }
+        throw new IllegalStateException("unexpected command: " + parser.command);
+    }
+
+    // Buffers the output of runBatch(), writing each character as one byte.
+    private class BatchWriter {
+        private final byte[] buffer = new byte[BATCH_BUFFER_SIZE];
+        private int length;
+
+        void write(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                if (length == buffer.length) flush();
+                final char c = text.charAt(i);
+                buffer[length++] = (byte) (c < 0x100 ? c : '?');
+            }
+        }
+
+        void writeLine(String text) {
+            write(text);
+            write("\n");
+        }
+
+        void flush() {
+            out.write(buffer, 0, length);
+            out.flush();
+            length = 0;
+        }
+    }
+
     /**
      * Run the REPL.
      *
@@ -0,0 +1,309 @@
+package com.jtse.tictactoe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A network server for the REPL, with one game per connection.
+ *
+ * Clients connect over TCP and speak the same line-based protocol as the
+ * console {@code REPL}: each connection gets its own game, and sees the
+ * board, the game status, and a {@code > } prompt before each command.
+ * The <tt>exit</tt> command closes the connection.
+ *
+ * All connections are served by a single thread using a non-blocking NIO
+ * selector. A single read buffer is shared by every connection, and an idle
+ * connection holds only its game and any partial command line, so very many
+ * idle connections can be held open at once. A connection that sends a line
+ * longer than {@code MAX_LINE_LENGTH} is closed. While a connection's output
+ * cannot be written, no more commands are read from it.
+ *
+ * The <tt>ai</tt> command searches for a move for up to a second, so it is run
+ * on a separate pool of search threads rather than on the selector thread,
+ * where it would stall every other connection. No more commands are read from
+ * a connection until its search has finished and the result has been written.
+ */
+public class REPLServer implements Runnable, Closeable {
+    /**
+     * The maximum length of a command line, in bytes.
+     */
+    public static final int MAX_LINE_LENGTH = 1024;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(8192);
+
+    // Runs ai commands off the selector thread. Finished searches are queued for the selector
+    // thread to write, and the selector is woken up to write them.
+    private final ExecutorService searches;
+    private final Queue<Search> finished = new ConcurrentLinkedQueue<>();
+
+    // Recognizes the commands that must be run off the selector thread.
+    private final CommandParser parser = new CommandParser();
+
+    private volatile boolean closed;
+
+    // The state of one connection.
+    private static class Session {
+        final REPL repl = new REPL();
+        final StringBuilder line = new StringBuilder();
+        ByteBuffer pending; // output not yet written, if any
+        ByteBuffer unread;  // input received while output was pending, if any
+        boolean exiting;    // close the connection once the pending output is written
+        boolean searching;  // an ai command is running on a search thread
+    }
+
+    // The output of an ai command, ready to be written.
+    private static class Search {
+        final SelectionKey key;
+        final String output;
+
+        Search(SelectionKey key, String output) {
+            this.key = key;
+            this.output = output;
+        }
+    }
+
+    /**
+     * Construct a server, listening on the specified address.
+     *
+     * The server does not accept connections until it is {@code run()}.
+     *
+     * @param address the address on which to listen; use port 0 for any free port
+     * @throws IOException if the server socket cannot be opened
+     */
+    public REPLServer(InetSocketAddress address) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        searches = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "REPLServer search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the address on which the server is listening
+     * @throws IOException if the address cannot be determined
+     */
+    public SocketAddress getLocalAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Serve connections until the server is closed.
+     */
+    @Override
+    public void run() {
+        try {
+            while (!closed) {
+                selector.select();
+                writeSearches();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    try {
+                        if (key.isAcceptable()) accept();
+                        else if (key.isReadable()) read(key);
+                        else if (key.isWritable()) write(key);
+                    } catch (IOException e) {
+                        closeConnection(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) throw new IllegalStateException("server failed", e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Stop the server, closing all connections.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        Session session = new Session();
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ, session);
+        send(key, prompt(session));
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+
+        readBuffer.clear();
+        if (channel.read(readBuffer) < 0) {
+            closeConnection(key);
+            return;
+        }
+        readBuffer.flip();
+        process(key, readBuffer);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Session session = (Session) key.attachment();
+        ((SocketChannel) key.channel()).write(session.pending);
+        if (session.pending.hasRemaining()) return;
+
+        session.pending = null;
+        if (session.exiting) {
+            closeConnection(key);
+            return;
+        }
+        resume(key);
+    }
+
+    // Writes the output of every finished search, and resumes reading from its connection.
+    private void writeSearches() {
+        for (Search search = finished.poll(); search != null; search = finished.poll()) {
+            final SelectionKey key = search.key;
+            if (!key.isValid()) continue;
+            Session session = (Session) key.attachment();
+            session.searching = false;
+            try {
+                send(key, search.output);
+                if (session.pending == null && key.isValid()) resume(key);
+            } catch (IOException e) {
+                closeConnection(key);
+            }
+        }
+    }
+
+    // Resumes reading from a connection, first processing any input that arrived while it was busy.
+    private void resume(SelectionKey key) throws IOException {
+        Session session = (Session) key.attachment();
+        key.interestOps(SelectionKey.OP_READ);
+
+        ByteBuffer unread = session.unread;
+        session.unread = null;
+        if (unread != null) process(key, unread);
+    }
+
+    // Processes input, evaluating each complete command line. If a response cannot be
+    // written immediately, or an ai command is searching, the rest of the input is kept
+    // until the response has been written, and no more is read from the connection.
+    private void process(SelectionKey key, ByteBuffer input) throws IOException {
+        Session session = (Session) key.attachment();
+        while (input.hasRemaining()) {
+            if (session.exiting || !key.isValid()) return;
+            if (session.pending != null || session.searching) {
+                session.unread = ByteBuffer.allocate(input.remaining()).put(input);
+                session.unread.flip();
+                return;
+            }
+
+            final char c = (char) (input.get() & 0xff);
+            if (c == '\n') {
+                String commandStr = session.line.toString().trim();
+                session.line.setLength(0);
+                if (isSearch(commandStr)) search(key, commandStr);
+                else send(key, respond(session, commandStr));
+            } else if (c != '\r') {
+                if (session.line.length() >= MAX_LINE_LENGTH) {
+                    closeConnection(key);
+                    return;
+                }
+                session.line.append(c);
+            }
+        }
+    }
+
+    // Writes as much output as possible immediately, and queues the rest.
+    private void send(SelectionKey key, String output) throws IOException {
+        Session session = (Session) key.attachment();
+        ByteBuffer buffer = ByteBuffer.wrap(output.getBytes(StandardCharsets.UTF_8));
+        ((SocketChannel) key.channel()).write(buffer);
+        if (buffer.hasRemaining()) {
+            session.pending = buffer;
+            key.interestOps(SelectionKey.OP_WRITE);
+        } else if (session.exiting) {
+            closeConnection(key);
+        }
+    }
+
+    private boolean isSearch(String commandStr) {
+        parser.parse(commandStr);
+        return parser.command == Metrics.Command.AI && parser.error == null;
+    }
+
+    // Runs a command on a search thread. The session's REPL is used only by that thread
+    // until the search is finished, since no more commands are read from the connection.
+    private void search(SelectionKey key, String commandStr) {
+        final Session session = (Session) key.attachment();
+        session.searching = true;
+        key.interestOps(0);
+        searches.execute(() -> {
+            finished.add(new Search(key, respond(session, commandStr)));
+            selector.wakeup();
+        });
+    }
+
+    // Evaluates a command line, returning the output that follows it, as REPL.run() would.
+    private static String respond(Session session, String commandStr) {
+        if (commandStr.equalsIgnoreCase("exit")) {
+            session.exiting = true;
+            return "";
+        }
+        if (commandStr.isEmpty()) return prompt(session);
+
+        String result;
+        try {
+            result = session.repl.eval(commandStr);
+        } catch (Exception e) {
+            result = "error: " + e;
+        }
+        return result + "\n\n" + prompt(session);
+    }
+
+    // The board, game status, and prompt shown before each command.
+    private static String prompt(Session session) {
+        return session.repl.drawBoard() + "\n" + session.repl.findGameStatus() + "\n> ";
+    }
+
+    private void closeConnection(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // nothing more to do
+        }
+    }
+
+    private void closeAll() {
+        searches.shutdownNow();
+        for (SelectionKey key: selector.keys()) {
+            closeConnection(key);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            // nothing more to do
+        }
+    }
+}
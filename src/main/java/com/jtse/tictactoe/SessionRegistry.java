@@ -0,0 +1,337 @@
+package com.jtse.tictactoe;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * An in-memory store of live game sessions, keyed by session ID.
+ *
+ * Each session is stored as the snapshot of its board (see
+ * {@code Game.snapshot()}), a single {@code int}, rather than as a {@code Game}
+ * object, so the registry can hold millions of sessions compactly. (Move
+ * history is not kept.) Sessions are spread over several shards, each an
+ * open-addressing hash table of primitive arrays with its own lock, so that
+ * threads working on different sessions rarely contend.
+ *
+ * A session that has not been accessed for longer than the idle timeout
+ * expires: it is evicted when it is next looked up, when its shard needs
+ * room, or by {@code evictExpired()}. The registry also holds at most a fixed
+ * number of sessions; when a shard is full, adding a session evicts an expired
+ * session if one is found, or else the least recently used of a small random
+ * sample of sessions.
+ *
+ * This class is thread-safe.
+ */
+public class SessionRegistry {
+    /**
+     * The value returned by {@code getSnapshot()} when there is no such session.
+     * (Every valid snapshot is non-negative.)
+     */
+    public static final int MISSING = -1;
+
+    // The default number of shards. Must be a power of two.
+    private static final int SHARDS = 64;
+
+    // The number of sessions sampled to choose one to evict.
+    private static final int EVICTION_SAMPLES = 8;
+
+    private final Shard[] shards;
+    private final int shardShift;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Create an empty registry.
+     *
+     * @param capacity the maximum number of sessions to hold
+     * @param idleTimeout how long a session may go unused before it expires
+     * @param unit the unit of {@code idleTimeout}
+     * @throws IllegalArgumentException if {@code capacity} or {@code idleTimeout} is less than 1
+     */
+    public SessionRegistry(int capacity, long idleTimeout, TimeUnit unit) {
+        this(capacity, idleTimeout, unit, Math.min(SHARDS, Integer.highestOneBit(Math.max(capacity, 1))), System::nanoTime);
+    }
+
+    // Creates a registry with the given number of shards (a power of two), reading the time
+    // in nanoseconds from the given clock.
+    SessionRegistry(int capacity, long idleTimeout, TimeUnit unit, int numShards, LongSupplier clock) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        if (idleTimeout < 1) throw new IllegalArgumentException("idle timeout must be at least 1");
+
+        this.ttlNanos = unit.toNanos(idleTimeout);
+        this.clock = clock;
+        this.shards = new Shard[numShards];
+        this.shardShift = Long.SIZE - Integer.numberOfTrailingZeros(numShards);
+        for (int i = 0; i < numShards; i++) {
+            // Spread the capacity over the shards, giving the remainder to the first few.
+            shards[i] = new Shard(capacity / numShards + (i < capacity % numShards ? 1 : 0));
+        }
+    }
+
+    // Mixes the bits of a session ID, so that sequential IDs are spread evenly.
+    private static long hash(long id) {
+        final long h = id * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private Shard shardFor(long hash) {
+        return shards.length == 1 ? shards[0] : shards[(int) (hash >>> shardShift)];
+    }
+
+    /**
+     * Look up a session's board.
+     *
+     * @param id the session ID
+     * @return the snapshot of the session's board; or {@code MISSING} if there
+     * is no such session (or it has expired)
+     */
+    public int getSnapshot(long id) {
+        final long hash = hash(id);
+        return shardFor(hash).get(id, hash);
+    }
+
+    /**
+     * Look up a session.
+     *
+     * @param id the session ID
+     * @return a new game with the session's board (and no move history);
+     * or {@code null} if there is no such session (or it has expired)
+     */
+    public Game get(long id) {
+        final int snapshot = getSnapshot(id);
+        if (snapshot == MISSING) return null;
+
+        Game game = new Game();
+        game.restore(snapshot);
+        return game;
+    }
+
+    /**
+     * Add or replace a session.
+     *
+     * @param id the session ID
+     * @param game the session's game, whose board is stored (the game itself is not kept)
+     */
+    public void put(long id, Game game) {
+        final long hash = hash(id);
+        shardFor(hash).put(id, hash, game.snapshot());
+    }
+
+    /**
+     * Make a move in a session, as by {@code Game.tryMove()}.
+     *
+     * The move is made atomically: concurrent moves in the same session are
+     * checked and applied one at a time.
+     *
+     * @param id the session ID
+     * @param piece The player to move: {@code Game.PIECE_X} or {@code Game.PIECE_O}.
+     * @param idx The space onto which the player would like to move.
+     * @return {@code MoveResult.OK} if the move was made; otherwise, the reason it was
+     * rejected; or {@code null} if there is no such session (or it has expired)
+     */
+    public MoveResult tryMove(long id, Boolean piece, int idx) {
+        final long hash = hash(id);
+        return shardFor(hash).tryMove(id, hash, piece, idx);
+    }
+
+    /**
+     * Remove a session.
+     *
+     * @param id the session ID
+     * @return true if the session was removed; false if there was no such session
+     */
+    public boolean remove(long id) {
+        final long hash = hash(id);
+        return shardFor(hash).remove(id, hash);
+    }
+
+    /**
+     * Evict every expired session.
+     *
+     * Expired sessions are otherwise evicted only as they are found, so a
+     * deployment may call this periodically to release their space promptly.
+     */
+    public void evictExpired() {
+        for (Shard shard: shards) shard.evictExpired();
+    }
+
+    /**
+     * @return the number of sessions held, including any that have expired but not yet been evicted
+     */
+    public int size() {
+        int size = 0;
+        for (Shard shard: shards) size += shard.size();
+        return size;
+    }
+
+    /**
+     * @return the number of lookups and moves that found their session
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups and moves that found no session
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of sessions evicted, because they expired or to make room
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // One shard: a hash table with linear probing, held in parallel arrays. A slot is in use if
+    // its board is non-zero; boards are stored with the USED bit set, since an empty board's
+    // snapshot is 0. Removal shifts later entries back, rather than leaving tombstones.
+    private final class Shard {
+        private static final int USED = 1 << 30;
+
+        private final int capacity;
+        private final int mask;
+        private final long[] ids;
+        private final int[] boards;
+        private final long[] lastAccess;
+        private final Game scratch = new Game();
+        private int size;
+
+        Shard(int capacity) {
+            this.capacity = capacity;
+            // Keep the table at most half full, so that probe sequences stay short.
+            final int length = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1) << 1;
+            this.mask = length - 1;
+            this.ids = new long[length];
+            this.boards = new int[length];
+            this.lastAccess = new long[length];
+        }
+
+        // The slot a hash probes first. (The high bits of the hash choose the shard.)
+        private int home(long hash) {
+            return (int) hash & mask;
+        }
+
+        // Finds the slot holding an ID; or, if it is absent, returns the complement of the
+        // empty slot where it would be added.
+        private int find(long id, long hash) {
+            for (int i = home(hash); ; i = (i + 1) & mask) {
+                if (boards[i] == 0) return ~i;
+                if (ids[i] == id) return i;
+            }
+        }
+
+        // Finds a live session, evicting it if it has expired, and updates its access time.
+        private int findLive(long id, long hash, long now) {
+            final int i = find(id, hash);
+            if (i >= 0 && now - lastAccess[i] > ttlNanos) {
+                delete(i);
+                evictions.increment();
+                misses.increment();
+                return ~i;
+            }
+            if (i >= 0) {
+                lastAccess[i] = now;
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+            return i;
+        }
+
+        synchronized int get(long id, long hash) {
+            final int i = findLive(id, hash, clock.getAsLong());
+            return i < 0 ? MISSING : boards[i] & ~USED;
+        }
+
+        synchronized MoveResult tryMove(long id, long hash, Boolean piece, int idx) {
+            final int i = findLive(id, hash, clock.getAsLong());
+            if (i < 0) return null;
+
+            scratch.restore(boards[i] & ~USED);
+            final MoveResult result = scratch.tryMove(piece, idx);
+            boards[i] = scratch.snapshot() | USED;
+            return result;
+        }
+
+        synchronized void put(long id, long hash, int snapshot) {
+            final long now = clock.getAsLong();
+            int i = find(id, hash);
+            if (i < 0) {
+                if (size == capacity) {
+                    evictOne(now);
+                    i = find(id, hash); // the eviction may have moved the empty slot
+                }
+                i = ~i;
+                ids[i] = id;
+                size++;
+            }
+            boards[i] = snapshot | USED;
+            lastAccess[i] = now;
+        }
+
+        synchronized boolean remove(long id, long hash) {
+            final int i = find(id, hash);
+            if (i < 0) return false;
+            delete(i);
+            return true;
+        }
+
+        synchronized void evictExpired() {
+            final long now = clock.getAsLong();
+            for (int i = 0; i < boards.length; ) {
+                if (boards[i] != 0 && now - lastAccess[i] > ttlNanos) {
+                    delete(i);
+                    evictions.increment();
+                    // Another entry may have been shifted into slot i; check it too.
+                } else {
+                    i++;
+                }
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        // Evicts a session to make room: the first expired one sampled, or else the least
+        // recently used of the sample.
+        private void evictOne(long now) {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            int victim = -1;
+            for (int sampled = 0; sampled < EVICTION_SAMPLES; ) {
+                final int i = random.nextInt(boards.length);
+                if (boards[i] == 0) continue; // the table is half full, so this ends quickly
+                sampled++;
+                if (victim < 0 || lastAccess[i] - lastAccess[victim] < 0) victim = i;
+                if (now - lastAccess[i] > ttlNanos) break;
+            }
+            delete(victim);
+            evictions.increment();
+        }
+
+        // Empties a slot, shifting back any later entries in its probe sequence that
+        // would otherwise no longer be found.
+        private void delete(int i) {
+            for (int j = (i + 1) & mask; boards[j] != 0; j = (j + 1) & mask) {
+                final int k = home(hash(ids[j]));
+                // Leave the entry at j if its home slot lies cyclically in (i, j].
+                if (i <= j ? i < k && k <= j : i < k || k <= j) continue;
+                ids[i] = ids[j];
+                boards[i] = boards[j];
+                lastAccess[i] = lastAccess[j];
+                i = j;
+            }
+            boards[i] = 0;
+            size--;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.jtse.tictactoe;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A game of Tic-Tac-Toe that may be played by several threads at once.
+ *
+ * {@code Game} is not thread-safe: two threads moving at the same time may both
+ * succeed, or leave the game in an inconsistent state. A {@code SharedGame}
+ * follows the same rules, but keeps the entire position in a single packed
+ * {@code int} (see {@code Bitboard}), from which the winner and next player are
+ * derived, and makes each move with a single compare-and-set of that
+ * {@code int}. No locks are taken.
+ *
+ * When threads race to move, exactly one wins. A thread whose compare-and-set
+ * fails checks its move again against the new position, so the losers are
+ * rejected just as if they had moved afterwards (typically with
+ * {@code MoveResult.OUT_OF_TURN} or {@code MoveResult.OCCUPIED}).
+ *
+ * Each query reads the position once, so it is consistent with itself, but
+ * two queries may see different positions if another thread moves in between.
+ * To examine several aspects of one position, take a {@code snapshot()} and
+ * restore it into a {@code Game}, or use {@code toGame()}.
+ */
+public class SharedGame {
+    private final AtomicInteger bits = new AtomicInteger();
+
+    /**
+     * Start a new shared game with an empty board.
+     */
+    public SharedGame() {}
+
+    /**
+     * Start a shared game from the current board of a game.
+     *
+     * @param game the game to copy (which is not modified)
+     */
+    public SharedGame(Game game) {
+        bits.set(game.snapshot());
+    }
+
+    // The winner of a packed board, as from Game.findWinner().
+    private static Boolean winner(int bits) {
+        return Bitboard.winner(bits);
+    }
+
+    // The next player on a packed board, as from Game.findNextPlayer().
+    private static Boolean nextPlayer(int bits) {
+        if (winner(bits) != null || Bitboard.empty(bits) == 0) return null;
+        return Bitboard.isOToMove(bits) ? Game.PIECE_O : Game.PIECE_X;
+    }
+
+    /**
+     * Get the current game board.
+     *
+     * @return a newly allocated 9-element board array
+     */
+    public Boolean[] getBoard() {
+        return Bitboard.unpack(bits.get());
+    }
+
+    /**
+     * Take a snapshot of the current board, in the form used by {@code Game.snapshot()}.
+     *
+     * @return a snapshot of the board
+     */
+    public int snapshot() {
+        return bits.get();
+    }
+
+    /**
+     * Copy the current board into a new, unshared game.
+     *
+     * @return a game with the current board (and no move history)
+     */
+    public Game toGame() {
+        Game game = new Game();
+        game.restore(bits.get());
+        return game;
+    }
+
+    /**
+     * Clear the board, starting a new game.
+     */
+    public void reset() {
+        bits.set(0);
+    }
+
+    /**
+     * Find the winner of the game, if there is one.
+     *
+     * @return {@code Game.PIECE_X} or {@code Game.PIECE_O} if a player
+     * has won the game; or {@code null} if no winner has been declared.
+     */
+    public Boolean findWinner() {
+        return winner(bits.get());
+    }
+
+    /**
+     * Figure out which player's move is next.
+     *
+     * @return {@code Game.PIECE_X} or {@code Game.PIECE_O} according to which
+     * player should move next; or {@code null} if the game is over.
+     */
+    public Boolean findNextPlayer() {
+        return nextPlayer(bits.get());
+    }
+
+    /**
+     * Find all the spaces onto which the next player may move.
+     *
+     * @return a bitmask in which bit {@code i} is set if the next player may move
+     * onto space {@code i}; or {@code 0} if the game is over
+     */
+    public int legalMovesMask() {
+        final int current = bits.get();
+        return nextPlayer(current) == null ? 0 : Bitboard.empty(current);
+    }
+
+    /**
+     * Iterate over the spaces onto which the next player may move.
+     *
+     * The iterator is a snapshot of the moves legal when it was created.
+     *
+     * @param moves the iterator to reset
+     * @return {@code moves}, reset to the legal moves, from lowest location to highest
+     */
+    public MoveIterator legalMoves(MoveIterator moves) {
+        return moves.reset(legalMovesMask());
+    }
+
+    /**
+     * Move a player's piece onto a space on the board.
+     *
+     * The move is checked as by {@code Game.move()}.
+     *
+     * @param piece The player to move: {@code Game.PIECE_X} or {@code Game.PIECE_O}.
+     * @param idx The space onto which the player would like to move.
+     * @throws InvalidMoveException if the specified piece cannot be moved onto the
+     * specified space.
+     */
+    public void move(Boolean piece, int idx) throws InvalidMoveException {
+        final MoveResult result = tryMove(piece, idx);
+        if (result != MoveResult.OK) {
+            throw new InvalidMoveException(result.getMessage(piece, findWinner()), piece, idx);
+        }
+    }
+
+    /**
+     * Attempt to move a player's piece onto a space on the board, without throwing.
+     *
+     * The move is checked as by {@code Game.tryMove()}, against the position at
+     * the moment the move is made, and is reported to the installed {@code Metrics}
+     * in the same way. Only one move can end a game, so its end is reported once.
+     *
+     * @param piece The player to move: {@code Game.PIECE_X} or {@code Game.PIECE_O}.
+     * @param idx The space onto which the player would like to move.
+     * @return {@code MoveResult.OK} if the move was made; otherwise, the reason it was rejected
+     */
+    public MoveResult tryMove(Boolean piece, int idx) {
+        if (piece == null) return rejected(MoveResult.NO_PIECE);
+
+        while (true) {
+            final int current = bits.get();
+            if (winner(current) != null) return rejected(MoveResult.ALREADY_WON);
+            if (Bitboard.empty(current) == 0) return rejected(MoveResult.DRAW);
+            if (Bitboard.isOToMove(current) != piece) return rejected(MoveResult.OUT_OF_TURN);
+            if (idx < 0 || idx >= Bitboard.CELLS) return rejected(MoveResult.INVALID_LOCATION);
+            if ((Bitboard.occupied(current) & (1 << idx)) != 0) return rejected(MoveResult.OCCUPIED);
+
+            final int next = current | Bitboard.bit(piece, idx);
+            if (bits.compareAndSet(current, next)) {
+                final Metrics metrics = Metrics.installed();
+                metrics.moveApplied();
+                if (nextPlayer(next) == null) metrics.gameOver(winner(next));
+                return MoveResult.OK;
+            }
+            // Another thread moved first; check the move again against the new position.
+        }
+    }
+
+    // Reports a rejected move to the installed Metrics.
+    private static MoveResult rejected(MoveResult reason) {
+        Metrics.installed().moveRejected(reason);
+        return reason;
+    }
+}
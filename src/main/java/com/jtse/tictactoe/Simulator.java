@@ -0,0 +1,169 @@
+package com.jtse.tictactoe;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays large numbers of simulated games between two move policies.
+ *
+ * Games are split into fixed-size batches, which are played in parallel on a
+ * {@code ForkJoinPool}. Each batch reuses a single {@code Game} and has its own
+ * {@code Random}, seeded from the simulation seed and the batch's position, so
+ * the results of a simulation depend only on its seed and not on the number of
+ * threads.
+ */
+public class Simulator {
+    // The number of games played sequentially by one task.
+    private static final int BATCH_SIZE = 4096;
+
+    private final MovePolicy xPolicy;
+    private final MovePolicy oPolicy;
+    private final ForkJoinPool pool;
+
+    /**
+     * Aggregate results of a simulation.
+     */
+    public static final class Statistics {
+        private final long xWins;
+        private final long oWins;
+        private final long draws;
+
+        Statistics(long xWins, long oWins, long draws) {
+            this.xWins = xWins;
+            this.oWins = oWins;
+            this.draws = draws;
+        }
+
+        Statistics plus(Statistics other) {
+            return new Statistics(xWins + other.xWins, oWins + other.oWins, draws + other.draws);
+        }
+
+        /**
+         * @return the number of games won by X
+         */
+        public long getXWins() {
+            return xWins;
+        }
+
+        /**
+         * @return the number of games won by O
+         */
+        public long getOWins() {
+            return oWins;
+        }
+
+        /**
+         * @return the number of games that were drawn
+         */
+        public long getDraws() {
+            return draws;
+        }
+
+        /**
+         * @return the total number of games played
+         */
+        public long getGames() {
+            return xWins + oWins + draws;
+        }
+
+        @Override
+        public String toString() {
+            return "X wins: " + xWins + ", O wins: " + oWins + ", draws: " + draws;
+        }
+    }
+
+    /**
+     * Construct a simulator that runs on the common fork/join pool.
+     *
+     * @param xPolicy the policy that plays X
+     * @param oPolicy the policy that plays O
+     */
+    public Simulator(MovePolicy xPolicy, MovePolicy oPolicy) {
+        this(xPolicy, oPolicy, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construct a simulator that runs on the specified fork/join pool.
+     *
+     * @param xPolicy the policy that plays X
+     * @param oPolicy the policy that plays O
+     * @param pool the pool on which to play games
+     */
+    public Simulator(MovePolicy xPolicy, MovePolicy oPolicy, ForkJoinPool pool) {
+        this.xPolicy = xPolicy;
+        this.oPolicy = oPolicy;
+        this.pool = pool;
+    }
+
+    /**
+     * Play a number of games from an empty board.
+     *
+     * @param games the number of games to play
+     * @param seed the seed from which each batch's random numbers are derived
+     * @return the aggregate results
+     * @throws IllegalStateException if a policy chooses an invalid move
+     */
+    public Statistics run(long games, long seed) {
+        return pool.invoke(new Batches(0, (games + BATCH_SIZE - 1) / BATCH_SIZE, games, seed));
+    }
+
+    // Plays batches [from, to) of a simulation of the given number of games,
+    // splitting the range in half until there is a single batch.
+    private class Batches extends RecursiveTask<Statistics> {
+        final long from;
+        final long to;
+        final long games;
+        final long seed;
+
+        Batches(long from, long to, long games, long seed) {
+            this.from = from;
+            this.to = to;
+            this.games = games;
+            this.seed = seed;
+        }
+
+        @Override
+        protected Statistics compute() {
+            if (to - from <= 1) {
+                return from < to ? playBatch(from) : new Statistics(0, 0, 0);
+            }
+
+            final long middle = (from + to) >>> 1;
+            Batches left = new Batches(from, middle, games, seed);
+            left.fork();
+            Statistics right = new Batches(middle, to, games, seed).compute();
+            return left.join().plus(right);
+        }
+
+        private Statistics playBatch(long batch) {
+            final Random random = new Random(seed + batch);
+            final Game game = new Game();
+            final long size = Math.min(BATCH_SIZE, games - batch * BATCH_SIZE);
+
+            long xWins = 0, oWins = 0, draws = 0;
+            for (long i = 0; i < size; i++) {
+                game.reset();
+                final Boolean winner = play(game, random);
+                if (winner == null) draws++;
+                else if (winner) oWins++;
+                else xWins++;
+            }
+            return new Statistics(xWins, oWins, draws);
+        }
+
+        // Plays a game to the end, returning the winner, or null for a draw.
+        private Boolean play(Game game, Random random) {
+            for (Boolean nextPlayer = game.findNextPlayer(); nextPlayer != null; nextPlayer = game.findNextPlayer()) {
+                final MovePolicy policy = nextPlayer ? oPolicy : xPolicy;
+                final int idx = policy.chooseMove(game, random);
+                final MoveResult result = game.playMove(nextPlayer, idx);
+                if (result != MoveResult.OK) {
+                    throw new IllegalStateException("policy chose an invalid move: "
+                            + result.getMessage(nextPlayer, game.findWinner()) + " at idx " + idx);
+                }
+            }
+            return game.findWinner();
+        }
+    }
+}
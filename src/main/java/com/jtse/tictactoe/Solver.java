@@ -0,0 +1,168 @@
+package com.jtse.tictactoe;
+
+/**
+ * A perfect-play solver for Tic-Tac-Toe.
+ *
+ * The solver searches the full game tree using negamax with alpha-beta
+ * pruning, caching results in a transposition table keyed by the base-3 index
+ * of each board's canonical representative under rotation and reflection (see
+ * {@code Symmetry}), so equivalent boards share one entry. The search is used to fill in a
+ * {@code PerfectPlayTable} of every legal position, which is built the first
+ * time the solver is queried; after that, each query is a table lookup.
+ * (A board restored with {@code Game(Boolean[])} that could not have arisen
+ * in play, such as one where both players have won, is searched instead.)
+ *
+ * Position values are expressed from X's point of view:
+ * <ul>
+ *     <li>A positive value means X wins with perfect play.</li>
+ *     <li>A negative value means O wins with perfect play.</li>
+ *     <li>Zero means the game is a draw with perfect play.</li>
+ * </ul>
+ * The magnitude of a winning value is one more than the number of empty
+ * spaces left on the board when the game is won, so quicker wins (and
+ * slower losses) are preferred.
+ *
+ * This class is thread-safe.
+ */
+public final class Solver {
+    private Solver() {}
+
+    // Greater than the magnitude of any position value.
+    private static final int INFINITY = Bitboard.CELLS + 1;
+
+    // Transposition table entries pack a value, a bound type, and a "present" flag into
+    // one int, so that an entry is always written and read atomically. An entry of 0 is empty.
+    private static final int VALUE_OFFSET = 16;
+    private static final int VALUE_MASK = 0x1f;
+    private static final int BOUND_SHIFT = 5;
+    private static final int BOUND_EXACT = 0;
+    private static final int BOUND_LOWER = 1;
+    private static final int BOUND_UPPER = 2;
+    private static final int PRESENT = 1 << 7;
+
+    // Indexed by the base-3 index of the canonical board. Racing threads may overwrite each
+    // other's entries for the same position, which is harmless, since every stored entry is
+    // a valid bound. Values are unchanged by symmetry, so no transform needs to be recorded.
+    private static final int[] table = new int[Bitboard.INDEXES];
+
+    /**
+     * Find the value of the game with perfect play by both players.
+     *
+     * If the game is already over, this is the value of the final position.
+     *
+     * @param game the game to evaluate (which is not modified)
+     * @return the value of the game from X's point of view, as described above
+     */
+    public static int value(Game game) {
+        final int bits = game.packedBoard();
+        final int entry = PerfectPlayTable.entry(bits);
+        return PerfectPlayTable.isLegal(entry) ? PerfectPlayTable.value(entry) : searchValue(bits);
+    }
+
+    /**
+     * Find the moves that are optimal for the next player.
+     *
+     * A move is optimal if no other move leads to a better value for the
+     * player making it. The result is a bitmask in which bit {@code i} is set
+     * if moving to location {@code i} is optimal.
+     *
+     * @param game the game to evaluate (which is not modified)
+     * @return the bitmask of optimal moves; or {@code 0} if the game is over
+     */
+    public static int bestMoves(Game game) {
+        final int bits = game.packedBoard();
+        final int entry = PerfectPlayTable.entry(bits);
+        return PerfectPlayTable.isLegal(entry) ? PerfectPlayTable.bestMoves(entry) : searchBestMoves(bits);
+    }
+
+    /**
+     * Find how many more moves will be played with perfect play by both players.
+     *
+     * The winning player plays to win as quickly as possible, and the losing
+     * player to delay the loss as long as possible.
+     *
+     * @param game the game to evaluate (which is not modified)
+     * @return the number of moves until the game ends; or {@code 0} if the game is over
+     */
+    public static int distanceToEnd(Game game) {
+        // Positions missing from the table are all games that are already over.
+        return PerfectPlayTable.distanceToEnd(PerfectPlayTable.entry(game.packedBoard()));
+    }
+
+    // Searches for the value of a packed board, from X's point of view.
+    static int searchValue(int bits) {
+        final int empty = Bitboard.empty(bits);
+        final Boolean winner = Bitboard.winner(bits); // as Game decides, if both players have a line
+        if (winner == Game.PIECE_X) return Integer.bitCount(empty) + 1;
+        if (winner == Game.PIECE_O) return -(Integer.bitCount(empty) + 1);
+
+        final boolean pieceO = Bitboard.isOToMove(bits);
+        final int value = negamax(bits, pieceO, -INFINITY, INFINITY);
+        return pieceO ? -value : value;
+    }
+
+    // Searches for the optimal moves from a packed board; or 0 if the game is over.
+    static int searchBestMoves(int bits) {
+        final int empty = Bitboard.empty(bits);
+        if (empty == 0 || Bitboard.isWinning(Bitboard.xMask(bits)) || Bitboard.isWinning(Bitboard.oMask(bits))) {
+            return 0;
+        }
+
+        final boolean pieceO = Bitboard.isOToMove(bits);
+        int best = -INFINITY;
+        int bestMoves = 0;
+        for (int moves = empty; moves != 0; moves &= moves - 1) {
+            final int idx = Integer.numberOfTrailingZeros(moves);
+            final int value = moveValue(bits, pieceO, empty, idx, -INFINITY, INFINITY);
+            if (value > best) {
+                best = value;
+                bestMoves = 1 << idx;
+            } else if (value == best) {
+                bestMoves |= 1 << idx;
+            }
+        }
+        return bestMoves;
+    }
+
+    // Finds the value, for the player moving, of moving to idx.
+    private static int moveValue(int bits, boolean pieceO, int empty, int idx, int alpha, int beta) {
+        final int child = bits | Bitboard.bit(pieceO, idx);
+        if (Bitboard.isWinning(Bitboard.mask(child, pieceO))) {
+            return Integer.bitCount(empty); // the spaces left after this move, plus one
+        }
+        return -negamax(child, !pieceO, -beta, -alpha);
+    }
+
+    // Finds the value, for the player to move, of a position that is not yet won,
+    // within the window (alpha, beta).
+    private static int negamax(int bits, boolean pieceO, int alpha, int beta) {
+        final int empty = Bitboard.empty(bits);
+        if (empty == 0) return 0; // draw
+
+        final int key = Bitboard.index(Symmetry.canonicalBoard(bits));
+        final int entry = table[key];
+        if (entry != 0) {
+            final int value = (entry & VALUE_MASK) - VALUE_OFFSET;
+            final int bound = (entry >>> BOUND_SHIFT) & 3;
+            if (bound == BOUND_EXACT) return value;
+            if (bound == BOUND_LOWER && value >= beta) return value;
+            if (bound == BOUND_UPPER && value <= alpha) return value;
+        }
+
+        final int originalAlpha = alpha;
+        int best = -INFINITY;
+        for (int moves = empty; moves != 0; moves &= moves - 1) {
+            final int idx = Integer.numberOfTrailingZeros(moves);
+            final int value = moveValue(bits, pieceO, empty, idx, alpha, beta);
+            if (value > best) best = value;
+            if (best > alpha) alpha = best;
+            if (alpha >= beta) break;
+        }
+
+        final int bound = best <= originalAlpha ? BOUND_UPPER
+                : best >= beta ? BOUND_LOWER
+                : BOUND_EXACT;
+        table[key] = PRESENT | bound << BOUND_SHIFT | (best + VALUE_OFFSET);
+        return best;
+    }
+}
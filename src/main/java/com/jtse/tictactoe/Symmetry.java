@@ -0,0 +1,137 @@
+package com.jtse.tictactoe;
+
+/**
+ * The 8 symmetries of the board (the rotations and reflections of the square),
+ * applied to packed boards (see {@code Bitboard}).
+ *
+ * Boards that are rotations or reflections of each other are equivalent in
+ * play, so caches and tables of positions can be keyed by a single canonical
+ * representative of each class of equivalent boards: the one whose packed
+ * value is smallest. Canonicalizing also reports which transform produced the
+ * representative, so that moves found for the canonical board can be mapped
+ * back onto the original board.
+ *
+ * Transforms are numbered 0-7, with 0 as the identity. Each transform is applied
+ * by table lookup, one lookup per 9-bit mask.
+ */
+final class Symmetry {
+    private Symmetry() {}
+
+    /**
+     * The number of transforms.
+     */
+    static final int TRANSFORMS = 8;
+
+    /**
+     * The identity transform.
+     */
+    static final int IDENTITY = 0;
+
+    // The shift of the transform number in a canonicalize() result.
+    private static final int TRANSFORM_SHIFT = 24;
+
+    // PERMUTATIONS[t][i] is the location to which transform t moves location i.
+    private static final int[][] PERMUTATIONS = new int[TRANSFORMS][Bitboard.CELLS];
+
+    // INVERSES[t] is the transform that undoes transform t.
+    private static final int[] INVERSES = {0, 3, 2, 1, 4, 5, 6, 7};
+
+    // MASKS[t][mask] is the 9-bit mask transformed by transform t.
+    private static final int[][] MASKS = new int[TRANSFORMS][1 << Bitboard.CELLS];
+
+    static {
+        for (int i = 0; i < Bitboard.CELLS; i++) {
+            final int r = i / 3, c = i % 3;
+            PERMUTATIONS[0][i] = 3 * r + c;             // identity
+            PERMUTATIONS[1][i] = 3 * c + (2 - r);       // rotate 90 degrees clockwise
+            PERMUTATIONS[2][i] = 3 * (2 - r) + (2 - c); // rotate 180 degrees
+            PERMUTATIONS[3][i] = 3 * (2 - c) + r;       // rotate 90 degrees counterclockwise
+            PERMUTATIONS[4][i] = 3 * r + (2 - c);       // reflect left-right
+            PERMUTATIONS[5][i] = 3 * (2 - r) + c;       // reflect top-bottom
+            PERMUTATIONS[6][i] = 3 * c + r;             // reflect across the 0-4-8 diagonal
+            PERMUTATIONS[7][i] = 3 * (2 - c) + (2 - r); // reflect across the 2-4-6 diagonal
+        }
+
+        for (int t = 0; t < TRANSFORMS; t++) {
+            for (int mask = 0; mask < MASKS[t].length; mask++) {
+                int transformed = 0;
+                for (int i = 0; i < Bitboard.CELLS; i++) {
+                    if ((mask & (1 << i)) != 0) transformed |= 1 << PERMUTATIONS[t][i];
+                }
+                MASKS[t][mask] = transformed;
+            }
+        }
+    }
+
+    /**
+     * @return the packed board transformed by transform {@code t}
+     */
+    static int transform(int t, int bits) {
+        final int[] masks = MASKS[t];
+        return masks[Bitboard.xMask(bits)] | masks[Bitboard.oMask(bits)] << Bitboard.O_SHIFT;
+    }
+
+    /**
+     * @return the location to which transform {@code t} moves location {@code idx}
+     */
+    static int transformMove(int t, int idx) {
+        return PERMUTATIONS[t][idx];
+    }
+
+    /**
+     * @return the 9-bit mask of locations transformed by transform {@code t}
+     */
+    static int transformMask(int t, int mask) {
+        return MASKS[t][mask];
+    }
+
+    /**
+     * @return the transform that undoes transform {@code t}
+     */
+    static int inverse(int t) {
+        return INVERSES[t];
+    }
+
+    /**
+     * Find the canonical representative of a packed board, and the transform
+     * that produces it.
+     *
+     * The result packs both into a single {@code int}; use {@code board()} and
+     * {@code transformOf()} to unpack them. If several transforms produce the
+     * representative (because the board is itself symmetric), the lowest-numbered
+     * one is reported.
+     */
+    static int canonicalize(int bits) {
+        int best = bits;
+        int bestTransform = IDENTITY;
+        for (int t = 1; t < TRANSFORMS; t++) {
+            final int transformed = transform(t, bits);
+            if (transformed < best) {
+                best = transformed;
+                bestTransform = t;
+            }
+        }
+        return best | bestTransform << TRANSFORM_SHIFT;
+    }
+
+    /**
+     * @return the canonical representative of a packed board
+     */
+    static int canonicalBoard(int bits) {
+        return board(canonicalize(bits));
+    }
+
+    /**
+     * @return the canonical packed board from a {@code canonicalize()} result
+     */
+    static int board(int canonicalized) {
+        return canonicalized & ((1 << TRANSFORM_SHIFT) - 1);
+    }
+
+    /**
+     * @return the transform from a {@code canonicalize()} result
+     */
+    static int transformOf(int canonicalized) {
+        return canonicalized >>> TRANSFORM_SHIFT;
+    }
+}
@@ -0,0 +1,612 @@
+package com.jtse.tictactoe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tournaments between players, paired by round robin or by the Swiss system.
+ *
+ * Each pairing of two players is a match of a fixed number of games, in which
+ * the players take turns playing X. Matches are played as by {@code Simulator}:
+ * split into fixed-size batches, which are played in parallel on a
+ * {@code ForkJoinPool}, each reusing a single {@code Game} and with its own
+ * {@code Random}, seeded from the tournament seed and the positions of the
+ * match and the batch. Every match in a round is started at once, so that
+ * short matches still keep every thread busy.
+ *
+ * Each move is timed, and a player whose policy takes longer than the per-move
+ * time limit, or chooses an invalid move, forfeits the game. Policies are not
+ * interrupted: the limit decides whether a move counts, not how long it may
+ * run. Apart from forfeits on time, the results of a tournament depend only on
+ * its seed and not on the number of threads.
+ *
+ * A match is worth 1 point to the player who won more of its games, or half a
+ * point each if they won equally many; a player who sits out a Swiss round (a
+ * bye) gets 1 point. Ratings are Elo ratings, starting at {@code INITIAL_RATING},
+ * treating each match as a single game in which a player scores its share of
+ * the games (1 per win and half per draw). Every match in a round is rated from
+ * the ratings at the start of the round, and the changes are applied together
+ * at the end of the round, so the order of the schedule does not matter.
+ */
+public class Tournament {
+    /**
+     * The rating with which every player starts.
+     */
+    public static final double INITIAL_RATING = 1500;
+
+    /**
+     * The largest amount by which one match can change a rating.
+     */
+    public static final double K_FACTOR = 32;
+
+    // The number of games played sequentially by one task.
+    private static final int BATCH_SIZE = 4096;
+
+    // The outcomes of a game.
+    private static final int DRAW = 0;
+    private static final int X_WINS = 1;
+    private static final int O_WINS = 2;
+    private static final int X_FORFEITS = 3;
+    private static final int O_FORFEITS = 4;
+
+    private final List<Player> players;
+    private final long gamesPerPairing;
+    private final long moveTimeLimitNanos;
+    private final ForkJoinPool pool;
+
+    /**
+     * The results of one match.
+     *
+     * Forfeits are included in the wins and losses: a game forfeited by the
+     * first player counts as a win for the second player, and vice versa.
+     */
+    public static final class Pairing {
+        private final int round;
+        private final Player first;
+        private final Player second;
+        private final long firstWins;
+        private final long secondWins;
+        private final long draws;
+        private final long firstForfeits;
+        private final long secondForfeits;
+
+        Pairing(int round, Player first, Player second,
+                long firstWins, long secondWins, long draws, long firstForfeits, long secondForfeits) {
+            this.round = round;
+            this.first = first;
+            this.second = second;
+            this.firstWins = firstWins;
+            this.secondWins = secondWins;
+            this.draws = draws;
+            this.firstForfeits = firstForfeits;
+            this.secondForfeits = secondForfeits;
+        }
+
+        Pairing plus(Pairing other) {
+            return new Pairing(round, first, second,
+                    firstWins + other.firstWins, secondWins + other.secondWins, draws + other.draws,
+                    firstForfeits + other.firstForfeits, secondForfeits + other.secondForfeits);
+        }
+
+        /**
+         * @return the round in which the match was played, numbered from 1
+         */
+        public int getRound() {
+            return round;
+        }
+
+        /**
+         * @return the player who played X in the first game of the match
+         */
+        public Player getFirst() {
+            return first;
+        }
+
+        /**
+         * @return the player who played O in the first game of the match
+         */
+        public Player getSecond() {
+            return second;
+        }
+
+        /**
+         * @return the number of games won by the first player
+         */
+        public long getFirstWins() {
+            return firstWins;
+        }
+
+        /**
+         * @return the number of games won by the second player
+         */
+        public long getSecondWins() {
+            return secondWins;
+        }
+
+        /**
+         * @return the number of drawn games
+         */
+        public long getDraws() {
+            return draws;
+        }
+
+        /**
+         * @return the number of games the first player lost by forfeit
+         */
+        public long getFirstForfeits() {
+            return firstForfeits;
+        }
+
+        /**
+         * @return the number of games the second player lost by forfeit
+         */
+        public long getSecondForfeits() {
+            return secondForfeits;
+        }
+
+        /**
+         * @return the total number of games played
+         */
+        public long getGames() {
+            return firstWins + secondWins + draws;
+        }
+
+        /**
+         * @return the first player's share of the games, from 0 to 1, counting each draw as half a win
+         */
+        public double getFirstScore() {
+            return (firstWins + draws / 2.0) / getGames();
+        }
+
+        @Override
+        public String toString() {
+            return "round " + round + ": " + first + " vs " + second
+                    + ": " + first + " wins: " + firstWins + ", " + second + " wins: " + secondWins
+                    + ", draws: " + draws
+                    + ", forfeits: " + firstForfeits + " and " + secondForfeits;
+        }
+    }
+
+    /**
+     * One player's results over a whole tournament.
+     */
+    public static final class Standing {
+        private final Player player;
+        private final double points;
+        private final double rating;
+        private final long wins;
+        private final long losses;
+        private final long draws;
+        private final long forfeits;
+        private final int byes;
+
+        Standing(Player player, double points, double rating,
+                 long wins, long losses, long draws, long forfeits, int byes) {
+            this.player = player;
+            this.points = points;
+            this.rating = rating;
+            this.wins = wins;
+            this.losses = losses;
+            this.draws = draws;
+            this.forfeits = forfeits;
+            this.byes = byes;
+        }
+
+        /**
+         * @return the player
+         */
+        public Player getPlayer() {
+            return player;
+        }
+
+        /**
+         * @return the player's points: 1 per match won or bye, and half per match tied
+         */
+        public double getPoints() {
+            return points;
+        }
+
+        /**
+         * @return the player's Elo rating at the end of the tournament
+         */
+        public double getRating() {
+            return rating;
+        }
+
+        /**
+         * @return the number of games won by the player
+         */
+        public long getWins() {
+            return wins;
+        }
+
+        /**
+         * @return the number of games lost by the player, including forfeits
+         */
+        public long getLosses() {
+            return losses;
+        }
+
+        /**
+         * @return the number of drawn games
+         */
+        public long getDraws() {
+            return draws;
+        }
+
+        /**
+         * @return the number of games the player lost by forfeit
+         */
+        public long getForfeits() {
+            return forfeits;
+        }
+
+        /**
+         * @return the number of rounds the player sat out
+         */
+        public int getByes() {
+            return byes;
+        }
+
+        /**
+         * @return the total number of games played by the player
+         */
+        public long getGames() {
+            return wins + losses + draws;
+        }
+
+        @Override
+        public String toString() {
+            return player + ": points: " + points + ", rating: " + Math.round(rating)
+                    + ", wins: " + wins + ", losses: " + losses + ", draws: " + draws
+                    + ", forfeits: " + forfeits;
+        }
+    }
+
+    /**
+     * The results of a tournament.
+     */
+    public static final class Results {
+        private final List<Standing> standings;
+        private final List<Pairing> pairings;
+
+        Results(List<Standing> standings, List<Pairing> pairings) {
+            this.standings = Collections.unmodifiableList(standings);
+            this.pairings = Collections.unmodifiableList(pairings);
+        }
+
+        /**
+         * @return every player's results, ordered by points, then by rating, then by entry
+         */
+        public List<Standing> getStandings() {
+            return standings;
+        }
+
+        /**
+         * Find one player's results.
+         *
+         * @param player a player entered in the tournament
+         * @return the player's results
+         * @throws IllegalArgumentException if the player was not entered in the tournament
+         */
+        public Standing getStanding(Player player) {
+            for (Standing standing: standings) {
+                if (standing.getPlayer() == player) return standing;
+            }
+            throw new IllegalArgumentException("not entered in the tournament: " + player);
+        }
+
+        /**
+         * @return the results of every match, in the order they were scheduled
+         */
+        public List<Pairing> getPairings() {
+            return pairings;
+        }
+
+        /**
+         * @return the total number of games played
+         */
+        public long getGames() {
+            long games = 0;
+            for (Pairing pairing: pairings) games += pairing.getGames();
+            return games;
+        }
+    }
+
+    /**
+     * Construct a tournament that runs on the common fork/join pool.
+     *
+     * @param players the players, in order of entry
+     * @param gamesPerPairing the number of games in each match
+     * @param moveTimeLimit the longest a policy may take to choose a move
+     * @param unit the unit of {@code moveTimeLimit}
+     * @throws IllegalArgumentException if there are fewer than 2 players, a player is
+     * entered more than once, or the number of games or the time limit is not positive
+     */
+    public Tournament(List<Player> players, long gamesPerPairing, long moveTimeLimit, TimeUnit unit) {
+        this(players, gamesPerPairing, moveTimeLimit, unit, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construct a tournament that runs on the specified fork/join pool.
+     *
+     * @param players the players, in order of entry
+     * @param gamesPerPairing the number of games in each match
+     * @param moveTimeLimit the longest a policy may take to choose a move
+     * @param unit the unit of {@code moveTimeLimit}
+     * @param pool the pool on which to play games
+     * @throws IllegalArgumentException if there are fewer than 2 players, a player is
+     * entered more than once, or the number of games or the time limit is not positive
+     */
+    public Tournament(List<Player> players, long gamesPerPairing, long moveTimeLimit, TimeUnit unit,
+                      ForkJoinPool pool) {
+        if (players.size() < 2) throw new IllegalArgumentException("at least 2 players are required");
+        final Map<Player, Boolean> entered = new IdentityHashMap<>();
+        for (Player player: players) {
+            if (entered.put(player, Boolean.TRUE) != null) {
+                throw new IllegalArgumentException("entered more than once: " + player);
+            }
+        }
+        if (gamesPerPairing < 1) throw new IllegalArgumentException("gamesPerPairing must be positive");
+        if (moveTimeLimit < 1) throw new IllegalArgumentException("moveTimeLimit must be positive");
+
+        this.players = new ArrayList<>(players);
+        this.gamesPerPairing = gamesPerPairing;
+        this.moveTimeLimitNanos = unit.toNanos(moveTimeLimit);
+        this.pool = pool;
+    }
+
+    /**
+     * Run a round-robin tournament, in which every player plays one match against every other.
+     *
+     * All the matches are played in a single round, so every match is rated from
+     * the players' initial ratings.
+     *
+     * @param seed the seed from which each batch's random numbers are derived
+     * @return the results
+     */
+    public Results roundRobin(long seed) {
+        final Standings standings = new Standings(seed);
+        final List<int[]> schedule = new ArrayList<>();
+        for (int first = 0; first < players.size(); first++) {
+            for (int second = first + 1; second < players.size(); second++) {
+                schedule.add(new int[] {first, second});
+            }
+        }
+        standings.playRound(1, schedule);
+        return standings.results();
+    }
+
+    /**
+     * Run a Swiss-system tournament.
+     *
+     * Before each round, players are ranked by points, then by rating, then by
+     * entry, and paired from the top down, each with the highest-ranked player
+     * it has not yet met (or, if it has met them all, with the highest-ranked).
+     * If there is an odd number of players, the lowest-ranked player who has not
+     * yet had a bye sits the round out.
+     *
+     * @param rounds the number of rounds
+     * @param seed the seed from which each batch's random numbers are derived
+     * @return the results
+     * @throws IllegalArgumentException if the number of rounds is not positive
+     */
+    public Results swiss(int rounds, long seed) {
+        if (rounds < 1) throw new IllegalArgumentException("rounds must be positive");
+
+        final Standings standings = new Standings(seed);
+        for (int round = 1; round <= rounds; round++) {
+            standings.playRound(round, standings.swissPairings());
+        }
+        return standings.results();
+    }
+
+    // The running results of a tournament, indexed by each player's position in the entry list.
+    private class Standings {
+        final long seed;
+        final double[] points = new double[players.size()];
+        final double[] ratings = new double[players.size()];
+        final long[] wins = new long[players.size()];
+        final long[] losses = new long[players.size()];
+        final long[] draws = new long[players.size()];
+        final long[] forfeits = new long[players.size()];
+        final int[] byes = new int[players.size()];
+        final boolean[][] met = new boolean[players.size()][players.size()];
+        final List<Pairing> pairings = new ArrayList<>();
+
+        // Orders players from highest-ranked to lowest.
+        final Comparator<Integer> byRank = (a, b) -> {
+            if (points[a] != points[b]) return Double.compare(points[b], points[a]);
+            if (ratings[a] != ratings[b]) return Double.compare(ratings[b], ratings[a]);
+            return Integer.compare(a, b);
+        };
+
+        Standings(long seed) {
+            this.seed = seed;
+            Arrays.fill(ratings, INITIAL_RATING);
+        }
+
+        // Plays every match in a round at once, then records them in schedule order,
+        // rating each from the ratings at the start of the round.
+        void playRound(int round, List<int[]> schedule) {
+            final double[] startRatings = ratings.clone();
+            final long batches = (gamesPerPairing + BATCH_SIZE - 1) / BATCH_SIZE;
+            final List<Match> matches = new ArrayList<>(schedule.size());
+            for (int[] pair: schedule) {
+                final long matchSeed = seed + (pairings.size() + matches.size()) * batches;
+                final Match match = new Match(round, pair[0], pair[1], 0, batches, matchSeed);
+                pool.execute(match);
+                matches.add(match);
+            }
+            for (Match match: matches) {
+                record(match.first, match.second, match.join(), startRatings);
+            }
+        }
+
+        private void record(int first, int second, Pairing pairing, double[] startRatings) {
+            pairings.add(pairing);
+            met[first][second] = met[second][first] = true;
+
+            wins[first] += pairing.getFirstWins();
+            wins[second] += pairing.getSecondWins();
+            losses[first] += pairing.getSecondWins();
+            losses[second] += pairing.getFirstWins();
+            draws[first] += pairing.getDraws();
+            draws[second] += pairing.getDraws();
+            forfeits[first] += pairing.getFirstForfeits();
+            forfeits[second] += pairing.getSecondForfeits();
+
+            if (pairing.getFirstWins() > pairing.getSecondWins()) points[first] += 1;
+            else if (pairing.getFirstWins() < pairing.getSecondWins()) points[second] += 1;
+            else {
+                points[first] += 0.5;
+                points[second] += 0.5;
+            }
+
+            final double expected = 1 / (1 + Math.pow(10, (startRatings[second] - startRatings[first]) / 400));
+            final double change = K_FACTOR * (pairing.getFirstScore() - expected);
+            ratings[first] += change;
+            ratings[second] -= change;
+        }
+
+        // Pairs the players for the next Swiss round, giving a bye if needed.
+        List<int[]> swissPairings() {
+            final List<Integer> unpaired = ranking();
+            if (unpaired.size() % 2 != 0) {
+                int bye = unpaired.size() - 1;
+                for (int i = bye; i >= 0; i--) {
+                    if (byes[unpaired.get(i)] == 0) {
+                        bye = i;
+                        break;
+                    }
+                }
+                final int player = unpaired.remove(bye);
+                byes[player]++;
+                points[player] += 1;
+            }
+
+            final List<int[]> schedule = new ArrayList<>();
+            while (!unpaired.isEmpty()) {
+                final int first = unpaired.remove(0);
+                int opponent = 0;
+                for (int i = 0; i < unpaired.size(); i++) {
+                    if (!met[first][unpaired.get(i)]) {
+                        opponent = i;
+                        break;
+                    }
+                }
+                schedule.add(new int[] {first, unpaired.remove(opponent)});
+            }
+            return schedule;
+        }
+
+        private List<Integer> ranking() {
+            final List<Integer> ranking = new ArrayList<>(players.size());
+            for (int i = 0; i < players.size(); i++) ranking.add(i);
+            ranking.sort(byRank);
+            return ranking;
+        }
+
+        Results results() {
+            final List<Standing> standings = new ArrayList<>(players.size());
+            for (int i: ranking()) {
+                standings.add(new Standing(players.get(i), points[i], ratings[i],
+                        wins[i], losses[i], draws[i], forfeits[i], byes[i]));
+            }
+            return new Results(standings, new ArrayList<>(pairings));
+        }
+    }
+
+    // Plays batches [from, to) of a match between two players (by entry position),
+    // splitting the range in half until there is a single batch.
+    private class Match extends RecursiveTask<Pairing> {
+        final int round;
+        final int first;
+        final int second;
+        final long from;
+        final long to;
+        final long seed;
+
+        Match(int round, int first, int second, long from, long to, long seed) {
+            this.round = round;
+            this.first = first;
+            this.second = second;
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+        }
+
+        @Override
+        protected Pairing compute() {
+            if (to - from <= 1) {
+                return from < to ? playBatch(from)
+                        : new Pairing(round, players.get(first), players.get(second), 0, 0, 0, 0, 0);
+            }
+
+            final long middle = (from + to) >>> 1;
+            Match left = new Match(round, first, second, from, middle, seed);
+            left.fork();
+            Pairing right = new Match(round, first, second, middle, to, seed).compute();
+            return left.join().plus(right);
+        }
+
+        private Pairing playBatch(long batch) {
+            final Random random = new Random(seed + batch);
+            final Game game = new Game();
+            final MovePolicy firstPolicy = players.get(first).getPolicy();
+            final MovePolicy secondPolicy = players.get(second).getPolicy();
+            final long start = batch * BATCH_SIZE;
+            final long end = Math.min(start + BATCH_SIZE, gamesPerPairing);
+
+            long firstWins = 0, secondWins = 0, draws = 0, firstForfeits = 0, secondForfeits = 0;
+            for (long i = start; i < end; i++) {
+                game.reset();
+                // The first player plays X in even-numbered games.
+                final boolean firstIsX = (i & 1) == 0;
+                final int outcome = firstIsX
+                        ? play(game, random, firstPolicy, secondPolicy)
+                        : play(game, random, secondPolicy, firstPolicy);
+                if (outcome == DRAW) {
+                    draws++;
+                    continue;
+                }
+
+                final boolean forfeit = outcome == X_FORFEITS || outcome == O_FORFEITS;
+                final boolean xWon = outcome == X_WINS || outcome == O_FORFEITS;
+                if (xWon == firstIsX) {
+                    firstWins++;
+                    if (forfeit) secondForfeits++;
+                } else {
+                    secondWins++;
+                    if (forfeit) firstForfeits++;
+                }
+            }
+            return new Pairing(round, players.get(first), players.get(second),
+                    firstWins, secondWins, draws, firstForfeits, secondForfeits);
+        }
+
+        // Plays a game to the end, returning its outcome.
+        private int play(Game game, Random random, MovePolicy xPolicy, MovePolicy oPolicy) {
+            for (Boolean nextPlayer = game.findNextPlayer(); nextPlayer != null; nextPlayer = game.findNextPlayer()) {
+                final MovePolicy policy = nextPlayer ? oPolicy : xPolicy;
+                final long started = System.nanoTime();
+                final int idx = policy.chooseMove(game, random);
+                final boolean late = System.nanoTime() - started > moveTimeLimitNanos;
+                if (late || game.playMove(nextPlayer, idx) != MoveResult.OK) {
+                    return nextPlayer ? O_FORFEITS : X_FORFEITS;
+                }
+            }
+            final Boolean winner = game.findWinner();
+            return winner == null ? DRAW : winner ? O_WINS : X_WINS;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-test class BoardRenderer.
+ */
+class BoardRendererTest {
+    // The original REPL.drawBoard() implementation, as a reference.
+    private static String referenceRender(Boolean[] board) {
+        final String space = "  ";  // 2 spaces before each line
+
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < board.length; i += 3) {
+            String row = Arrays.stream(board, i, i+3)
+                    .map(piece -> piece == null ? " " : piece == Game.PIECE_X ? "X" : "O")
+                    .map(s -> " "+s+" ")
+                    .collect(Collectors.joining("|"));
+            rows.add(space + row + "\n");
+        }
+
+        return String.join(space+"---+---+---\n", rows);
+    }
+
+    @Test
+    void matchesReference() {
+        StringBuilder out = new StringBuilder();
+        for (int index = 0; index < Bitboard.INDEXES; index++) {
+            final int bits = Bitboard.fromIndex(index);
+            final String expected = referenceRender(Bitboard.unpack(bits));
+
+            assertEquals(expected, BoardRenderer.render(bits), "rendered board " + index);
+            assertSame(BoardRenderer.render(bits), BoardRenderer.render(bits), "cached board " + index);
+
+            out.setLength(0);
+            BoardRenderer.render(bits, out);
+            assertEquals(expected, out.toString(), "appended board " + index);
+        }
+    }
+}
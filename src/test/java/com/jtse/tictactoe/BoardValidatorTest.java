@@ -0,0 +1,117 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-test class BoardValidator.
+ */
+class BoardValidatorTest {
+    private static int code(String board) {
+        int bits = 0;
+        for (int i = 0; i < Bitboard.CELLS; i++) {
+            final char c = board.charAt(i);
+            if (c != ' ') bits |= Bitboard.bit(c == 'O', i);
+        }
+        return Bitboard.index(bits);
+    }
+
+    // The rows, columns, and diagonals, written out here rather than taken from Bitboard.
+    private static final int[][] LINES = {
+            {0, 1, 2}, {3, 4, 5}, {6, 7, 8},
+            {0, 3, 6}, {1, 4, 7}, {2, 5, 8},
+            {0, 4, 8}, {2, 4, 6},
+    };
+
+    private static boolean hasLine(int cells) {
+        for (int[] line: LINES) {
+            if ((cells >> line[0] & cells >> line[1] & cells >> line[2] & 1) != 0) return true;
+        }
+        return false;
+    }
+
+    // Adds every position reachable by playing on from the given one, X first and in turn,
+    // stopping once someone has a line.
+    private static void reach(int xCells, int oCells, boolean oToMove, Set<Integer> positions) {
+        int bits = 0;
+        for (int i = 0; i < Bitboard.CELLS; i++) {
+            if ((xCells >> i & 1) != 0) bits |= Bitboard.bit(false, i);
+            if ((oCells >> i & 1) != 0) bits |= Bitboard.bit(true, i);
+        }
+        if (!positions.add(bits) || hasLine(xCells) || hasLine(oCells)) return;
+
+        for (int i = 0; i < Bitboard.CELLS; i++) {
+            if (((xCells | oCells) >> i & 1) != 0) continue;
+            if (oToMove) reach(xCells, oCells | 1 << i, false, positions);
+            else reach(xCells | 1 << i, oCells, true, positions);
+        }
+    }
+
+    @Test
+    void legalPositions() {
+        final Set<Integer> reachable = new HashSet<>();
+        reach(0, 0, false, reachable);
+        assertEquals(5478, reachable.size(), "reachable positions");
+
+        final Set<Integer> classes = new HashSet<>();
+        for (int bits: reachable) classes.add(Symmetry.canonicalBoard(bits));
+        assertEquals(765, classes.size(), "reachable positions up to symmetry");
+
+        int legal = 0;
+        for (int code = 0; code < Game.CODES; code++) {
+            final boolean expected = reachable.contains(Bitboard.fromIndex(code));
+            assertEquals(expected, BoardValidator.isLegal(code), "code " + code);
+            assertEquals(expected, BoardValidator.check(code) == BoardValidator.Reason.LEGAL, "reason " + code);
+            if (BoardValidator.isLegal(code)) legal++;
+        }
+        assertEquals(5478, legal, "legal positions");
+    }
+
+    @Test
+    void reasons() {
+        assertEquals(BoardValidator.Reason.LEGAL, BoardValidator.check(code("XXXOO    ")), "X won");
+        assertEquals(BoardValidator.Reason.X_OUT_OF_TURN, BoardValidator.check(code("XX       ")), "two X's");
+        assertEquals(BoardValidator.Reason.O_OUT_OF_TURN, BoardValidator.check(code("O        ")), "O first");
+        assertEquals(BoardValidator.Reason.BOTH_WON, BoardValidator.check(code("XXXOOO   ")), "both won");
+        assertEquals(BoardValidator.Reason.PLAYED_AFTER_WIN, BoardValidator.check(code("XXXOO O  ")),
+                "X won, then O moved");
+        assertEquals(BoardValidator.Reason.PLAYED_AFTER_WIN, BoardValidator.check(code("OOOXX XX ")),
+                "O won, then X moved");
+        assertEquals(BoardValidator.Reason.INVALID_CODE, BoardValidator.check(-1), "negative code");
+        assertEquals(BoardValidator.Reason.INVALID_CODE, BoardValidator.check(Game.CODES), "code too large");
+        assertFalse(BoardValidator.isLegal(Game.CODES), "code too large is not legal");
+
+        assertEquals("'X' has moved out of turn", BoardValidator.Reason.X_OUT_OF_TURN.getMessage(),
+                "message matches Game(Boolean[])");
+        assertNull(BoardValidator.Reason.LEGAL.getMessage(), "no message for a legal board");
+    }
+
+    @Test
+    void batch() {
+        final int[] codes = {code("OO       "), code("X        "), code("XX       "), -5, code("XXXOOO   "), 0};
+        final BoardValidator.Reason[] reasons = new BoardValidator.Reason[codes.length];
+
+        assertEquals(2, BoardValidator.validate(codes, 1, 5, reasons), "legal boards");
+        assertNull(reasons[0], "outside the range");
+        assertArrayEquals(new BoardValidator.Reason[] {
+                null,
+                BoardValidator.Reason.LEGAL,
+                BoardValidator.Reason.X_OUT_OF_TURN,
+                BoardValidator.Reason.INVALID_CODE,
+                BoardValidator.Reason.BOTH_WON,
+                BoardValidator.Reason.LEGAL,
+        }, reasons, "reasons");
+        assertThrows(IndexOutOfBoundsException.class, () -> BoardValidator.validate(codes, 2, 5, reasons));
+
+        final int[] counts = BoardValidator.countReasons(codes);
+        assertEquals(2, counts[BoardValidator.Reason.LEGAL.ordinal()], "legal count");
+        assertEquals(1, counts[BoardValidator.Reason.O_OUT_OF_TURN.ordinal()], "O out of turn count");
+        assertEquals(1, counts[BoardValidator.Reason.X_OUT_OF_TURN.ordinal()], "X out of turn count");
+        assertEquals(1, counts[BoardValidator.Reason.INVALID_CODE.ordinal()], "invalid code count");
+        assertEquals(1, counts[BoardValidator.Reason.BOTH_WON.ordinal()], "both won count");
+    }
+}
@@ -0,0 +1,138 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-test class CommandParser.
+ */
+class CommandParserTest {
+    private final CommandParser parser = new CommandParser();
+
+    @Test
+    void commands() {
+        parser.parse("new");
+        assertEquals(Metrics.Command.NEW, parser.command, "new");
+        parser.parse("  HiNt  ");
+        assertEquals(Metrics.Command.HINT, parser.command, "hint, with whitespace and mixed case");
+        parser.parse("undo now");
+        assertEquals(Metrics.Command.UNDO, parser.command, "undo, with extra words");
+        parser.parse("Redo");
+        assertEquals(Metrics.Command.REDO, parser.command, "redo");
+        assertNull(parser.error, "no error");
+
+        parser.parse("EXIT");
+        assertTrue(parser.exit, "exit");
+        assertNull(parser.command, "exit is not an evaluated command");
+
+        parser.parse(" \t ");
+        assertNull(parser.command, "blank");
+        assertFalse(parser.exit, "blank is not exit");
+
+        parser.parse("Foo bar");
+        assertEquals(Metrics.Command.INVALID, parser.command, "invalid");
+        assertEquals("Invalid command: foo", parser.error, "invalid command message");
+    }
+
+    @Test
+    void moves() {
+        parser.parse("MOVE O 1");
+        assertEquals(Metrics.Command.MOVE, parser.command, "move");
+        assertEquals(Game.PIECE_O, parser.piece, "piece");
+        assertEquals(1, parser.location, "location");
+        assertNull(parser.error, "no error");
+
+        parser.parse("move\tx\t+8 and more");
+        assertEquals(Game.PIECE_X, parser.piece, "piece, with tabs");
+        assertEquals(8, parser.location, "location, with a sign");
+
+        // Locations off the board are parsed, and rejected by the game.
+        parser.parse("move x -1");
+        assertEquals(-1, parser.location, "negative location");
+        parser.parse("move x 2147483647");
+        assertEquals(Integer.MAX_VALUE, parser.location, "largest location");
+    }
+
+    @Test
+    void invalidMoves() {
+        parser.parse("move foo 0");
+        assertEquals("move: foo is not a valid piece (must be X or O)", parser.error, "invalid piece");
+        parser.parse("move X BLAH");
+        assertEquals("move: blah is not a valid location (must be between 0 and 8)", parser.error,
+                "invalid location");
+        parser.parse("move x 2147483648");
+        assertEquals("move: 2147483648 is not a valid location (must be between 0 and 8)", parser.error,
+                "location too large");
+        parser.parse("move x -");
+        assertEquals("move: - is not a valid location (must be between 0 and 8)", parser.error, "sign only");
+        parser.parse("move");
+        assertEquals("move: a piece is required (must be X or O)", parser.error, "missing piece");
+        parser.parse("move o");
+        assertEquals("move: a location is required (must be between 0 and 8)", parser.error, "missing location");
+        assertEquals(Metrics.Command.MOVE, parser.command, "still a move");
+    }
+
+    @Test
+    void ranges() {
+        final String lines = "move o 4\nundo\nfoo\nmove x 12";
+        parser.parse(lines, 0, 8);
+        assertEquals(Metrics.Command.MOVE, parser.command, "first line");
+        assertEquals(4, parser.location, "location");
+
+        parser.parse(lines, 9, 13);
+        assertEquals(Metrics.Command.UNDO, parser.command, "second line");
+        assertNull(parser.piece, "piece cleared");
+        assertEquals(0, parser.location, "location cleared");
+
+        parser.parse(lines, 14, 17);
+        assertEquals("Invalid command: foo", parser.error, "third line, not run into the next");
+
+        parser.parse(lines, 18, 25);
+        assertEquals("move: a location is required (must be between 0 and 8)", parser.error,
+                "range ends before the location");
+        parser.parse(lines, 18, lines.length());
+        assertNull(parser.error, "error cleared");
+        assertEquals(12, parser.location, "last line");
+    }
+
+    @Test
+    void bytes() {
+        final byte[] bytes = "xxmove o 4\n".getBytes(StandardCharsets.US_ASCII);
+        CommandParser.ByteChars chars = new CommandParser.ByteChars().wrap(bytes, 2, 8);
+        assertEquals("move o 4", chars.toString(), "view");
+
+        parser.parse(chars);
+        assertEquals(Metrics.Command.MOVE, parser.command, "move");
+        assertEquals(Game.PIECE_O, parser.piece, "piece");
+        assertEquals(4, parser.location, "location");
+    }
+
+    @Test
+    void byteLines() {
+        // Lines as a batch reads them: CRLF or LF line ends, and bytes that are not ASCII.
+        final byte[] bytes = "new\r\nMOVE X 0\r\n\r\ncaf\u00e9 au lait\nexit\n".getBytes(StandardCharsets.ISO_8859_1);
+        final CommandParser.ByteChars chars = new CommandParser.ByteChars();
+        final Metrics.Command[] commands = new Metrics.Command[5];
+        int numLines = 0;
+        for (int start = 0, end; start < bytes.length; start = end + 1) {
+            end = start;
+            while (bytes[end] != '\n') end++;
+            parser.parse(chars.wrap(bytes, start, end - start));
+            commands[numLines++] = parser.command;
+            if (parser.command == Metrics.Command.INVALID) {
+                assertEquals("Invalid command: caf\u00e9", parser.error, "bytes read as ISO-8859-1");
+            }
+        }
+
+        assertEquals(5, numLines, "lines");
+        assertArrayEquals(new Metrics.Command[] {
+                Metrics.Command.NEW, Metrics.Command.MOVE, null, Metrics.Command.INVALID, null,
+        }, commands, "commands");
+        assertTrue(parser.exit, "exit");
+        assertEquals("exit", chars.toString(), "view of the last line");
+        assertEquals("xi", chars.subSequence(1, 3).toString(), "subsequence");
+    }
+}
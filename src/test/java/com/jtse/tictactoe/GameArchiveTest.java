@@ -0,0 +1,195 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameArchiveTest {
+    @TempDir
+    Path dir;
+
+    // Plays a random game, possibly stopping before it is over.
+    private static Game randomGame(Random random) {
+        Game game = new Game();
+        final int numMoves = random.nextInt(Bitboard.CELLS + 1);
+        for (int i = 0; i < numMoves && game.findNextPlayer() != null; i++) {
+            game.tryMove(game.findNextPlayer(), Bitboard.randomLocation(game.legalMovesMask(), random));
+        }
+        return game;
+    }
+
+    // Writes random games to a record file, and returns their records.
+    private List<Integer> writeGames(Path path, int numGames, long seed) throws IOException {
+        Random random = new Random(seed);
+        List<Integer> records = new ArrayList<>();
+        try (GameRecordWriter writer = GameRecordWriter.append(path)) {
+            for (int i = 0; i < numGames; i++) {
+                Game game = randomGame(random);
+                records.add(GameRecords.encode(game));
+                writer.write(game);
+            }
+        }
+        return records;
+    }
+
+    // Finds the games that reach a position by replaying every record.
+    private static List<Long> gamesReaching(List<Integer> records, int bits) {
+        List<Long> games = new ArrayList<>();
+        for (int n = 0; n < records.size(); n++) {
+            Game game = new Game();
+            GameRecords.replay(records.get(n), game);
+            boolean reached = game.packedBoard() == bits;
+            while (!reached && game.undo()) {
+                reached = game.packedBoard() == bits;
+            }
+            if (reached) games.add((long) n);
+        }
+        return games;
+    }
+
+    private static void assertMatches(List<Integer> records, GameArchive archive) {
+        assertEquals(records.size(), archive.size(), "archive size");
+        for (int n = 0; n < records.size(); n++) {
+            assertEquals((int) records.get(n), archive.record(n), "record " + n);
+        }
+
+        // Every position reached by the first few games.
+        for (int n = 0; n < 20; n++) {
+            Game game = archive.game(n);
+            do {
+                final int bits = game.packedBoard();
+                List<Long> expected = gamesReaching(records, bits);
+                assertEquals(expected, archive.gamesReaching(game).boxed().collect(Collectors.toList()),
+                        "games reaching " + bits);
+                assertEquals(expected.size(), archive.countGamesReaching(game), "count reaching " + bits);
+            } while (game.undo());
+        }
+    }
+
+    @Test
+    void randomAccess() throws IOException {
+        final Path path = dir.resolve("games.tttr");
+        List<Integer> records = writeGames(path, 2000, 1);
+
+        // Small segments, so that records and postings are spread over several mappings.
+        try (GameArchive archive = new GameArchive(path, false, 100, 1000)) {
+            assertMatches(records, archive);
+
+            Game game = archive.game(1234);
+            assertEquals((int) records.get(1234), GameRecords.encode(game), "game rebuilt with its history");
+            assertThrows(IndexOutOfBoundsException.class, () -> archive.game(2000));
+            assertThrows(IndexOutOfBoundsException.class, () -> archive.record(-1));
+        }
+        assertTrue(Files.exists(dir.resolve("games.tttr.idx")), "index written");
+    }
+
+    @Test
+    void emptyBoard() throws IOException {
+        final Path path = dir.resolve("games.tttr");
+        writeGames(path, 100, 3);
+        try (GameArchive archive = GameArchive.open(path)) {
+            assertEquals(100, archive.countGamesReaching(new Game()), "count reaching empty board");
+            assertArrayEquals(LongStream.range(0, 100).toArray(), archive.gamesReaching(new Game()).toArray(),
+                    "games reaching empty board");
+        }
+    }
+
+    @Test
+    void indexRebuiltAfterAppend() throws IOException {
+        final Path path = dir.resolve("games.tttr");
+        List<Integer> records = writeGames(path, 500, 4);
+        try (GameArchive archive = GameArchive.open(path)) {
+            assertMatches(records, archive);
+        }
+
+        records.addAll(writeGames(path, 500, 5));
+        try (GameArchive archive = GameArchive.open(path)) {
+            assertMatches(records, archive);
+        }
+    }
+
+    @Test
+    void indexRebuiltAfterRewrite() throws IOException {
+        final Path path = dir.resolve("games.tttr");
+        final Path indexPath = dir.resolve("games.tttr.idx");
+        writeGames(path, 500, 7);
+        try (GameArchive archive = GameArchive.open(path)) {
+            assertEquals(500, archive.size(), "archive size");
+        }
+        final byte[] firstIndex = Files.readAllBytes(indexPath);
+        final FileTime marked = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(indexPath, marked);
+        try (GameArchive archive = GameArchive.open(path)) {
+            assertEquals(500, archive.size(), "archive size");
+        }
+        assertEquals(marked, Files.getLastModifiedTime(indexPath), "index reused while current");
+
+        // The same number of different games.
+        Files.delete(path);
+        List<Integer> records = writeGames(path, 500, 8);
+        try (GameArchive archive = GameArchive.open(path)) {
+            assertMatches(records, archive);
+        }
+        assertFalse(Arrays.equals(firstIndex, Files.readAllBytes(indexPath)), "index rebuilt");
+    }
+
+    @Test
+    void indexVerified() throws IOException {
+        final Path path = dir.resolve("games.tttr");
+        final Path indexPath = dir.resolve("games.tttr.idx");
+        List<Integer> records = writeGames(path, 30_000, 9); // more than is checked without verifying
+        try (GameArchive archive = GameArchive.open(path, true)) {
+            assertMatches(records, archive);
+        }
+        final FileTime marked = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(indexPath, marked);
+        try (GameArchive archive = GameArchive.open(path, true)) {
+            assertEquals(30_000, archive.size(), "archive size");
+        }
+        assertEquals(marked, Files.getLastModifiedTime(indexPath), "index reused while current");
+
+        // Change the first game, leaving the file's size and last-modified time as they were.
+        final FileTime modified = Files.getLastModifiedTime(path);
+        final byte[] bytes = Files.readAllBytes(path);
+        final int first = GameRecordWriter.HEADER.length;
+        int other = first + GameRecords.RECORD_BYTES;
+        while (Arrays.equals(Arrays.copyOfRange(bytes, first, first + GameRecords.RECORD_BYTES),
+                Arrays.copyOfRange(bytes, other, other + GameRecords.RECORD_BYTES))) {
+            other += GameRecords.RECORD_BYTES;
+        }
+        System.arraycopy(bytes, other, bytes, first, GameRecords.RECORD_BYTES);
+        Files.write(path, bytes);
+        Files.setLastModifiedTime(path, modified);
+        records.set(0, records.get((other - first) / GameRecords.RECORD_BYTES));
+
+        try (GameArchive archive = GameArchive.open(path)) {
+            assertEquals(30_000, archive.size(), "archive size");
+        }
+        assertEquals(marked, Files.getLastModifiedTime(indexPath), "change not found without verifying");
+        try (GameArchive archive = GameArchive.open(path, true)) {
+            assertMatches(records, archive);
+        }
+        assertNotEquals(marked, Files.getLastModifiedTime(indexPath), "index rebuilt after verifying");
+    }
+
+    @Test
+    void partialRecord() throws IOException {
+        final Path path = dir.resolve("games.tttr");
+        writeGames(path, 10, 6);
+        Files.write(path, new byte[] {0}, StandardOpenOption.APPEND);
+        assertThrows(IOException.class, () -> GameArchive.open(path));
+    }
+}
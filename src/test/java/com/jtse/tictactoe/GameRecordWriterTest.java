@@ -0,0 +1,117 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test GameRecordWriter and GameRecordReader together, on record files.
+ */
+class GameRecordWriterTest {
+    @TempDir
+    Path dir;
+
+    // Plays a random game, possibly stopping before it is over.
+    private static Game randomGame(Random random) {
+        Game game = new Game();
+        final int numMoves = random.nextInt(Bitboard.CELLS + 1);
+        for (int i = 0; i < numMoves && game.findNextPlayer() != null; i++) {
+            game.tryMove(game.findNextPlayer(), Bitboard.randomLocation(game.legalMovesMask(), random));
+        }
+        return game;
+    }
+
+    @Test
+    void writeAndRead() throws IOException {
+        final Path path = dir.resolve("games.tttr");
+        Random random = new Random(1);
+        List<Boolean[]> boards = new ArrayList<>();
+
+        // Enough games to fill the buffers several times.
+        try (GameRecordWriter writer = GameRecordWriter.append(path)) {
+            for (int i = 0; i < 100_000; i++) {
+                Game game = randomGame(random);
+                boards.add(game.getBoard());
+                writer.write(game);
+            }
+        }
+        assertEquals(5 + 3 * 100_000, Files.size(path), "file size");
+
+        Game game = new Game();
+        try (GameRecordReader reader = GameRecordReader.open(path)) {
+            for (Boolean[] board: boards) {
+                assertTrue(reader.next(game), "game read");
+                assertArrayEquals(board, game.getBoard(), "game replayed");
+            }
+            assertFalse(reader.next(game), "end of file");
+        }
+    }
+
+    @Test
+    void append() throws IOException, InvalidMoveException {
+        final Path path = dir.resolve("games.tttr");
+        Game first = new Game();
+        first.move(Game.PIECE_X, 4);
+        Game second = new Game();
+        second.move(Game.PIECE_X, 0);
+        second.move(Game.PIECE_O, 8);
+
+        try (GameRecordWriter writer = GameRecordWriter.append(path)) {
+            writer.write(first);
+        }
+        try (GameRecordWriter writer = GameRecordWriter.append(path)) {
+            writer.write(second);
+        }
+
+        try (GameRecordReader reader = GameRecordReader.open(path)) {
+            assertEquals(GameRecords.encode(first), reader.nextRecord(), "first record");
+            assertEquals(GameRecords.encode(second), reader.nextRecord(), "appended record");
+            assertEquals(-1, reader.nextRecord(), "end of file");
+        }
+    }
+
+    @Test
+    void notARecordFile() throws IOException {
+        final Path path = dir.resolve("other.txt");
+        Files.write(path, "hello, world".getBytes());
+        assertThrows(IOException.class, () -> GameRecordReader.open(path), "reading");
+        assertThrows(IOException.class, () -> GameRecordWriter.append(path), "appending");
+    }
+
+    @Test
+    void partialRecord() throws IOException {
+        final Path path = dir.resolve("games.tttr");
+        try (GameRecordWriter writer = GameRecordWriter.append(path)) {
+            writer.write(new Game());
+        }
+        Files.write(path, new byte[]{0}, StandardOpenOption.APPEND);
+
+        try (GameRecordReader reader = GameRecordReader.open(path)) {
+            assertEquals(0, reader.nextRecord(), "complete record");
+            assertThrows(IOException.class, reader::nextRecord, "partial record");
+        }
+        assertThrows(IOException.class, () -> GameRecordWriter.append(path), "appending");
+    }
+
+    @Test
+    void invalidRecord() throws IOException {
+        final Path path = dir.resolve("games.tttr");
+        try (GameRecordWriter writer = GameRecordWriter.append(path)) {
+            assertThrows(IllegalArgumentException.class, () -> writer.writeRecord(GameRecords.RECORDS), "writing");
+        }
+        Files.write(path, new byte[]{-1, -1, -1}, StandardOpenOption.APPEND);
+
+        try (GameRecordReader reader = GameRecordReader.open(path)) {
+            assertThrows(IOException.class, reader::nextRecord);
+        }
+    }
+}
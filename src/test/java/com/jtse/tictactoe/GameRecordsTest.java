@@ -0,0 +1,72 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-test class GameRecords.
+ */
+class GameRecordsTest {
+    @Test
+    void recordBounds() {
+        assertTrue(GameRecords.RECORDS <= 1 << GameRecords.RECORD_BITS, "records fit in RECORD_BITS");
+        assertTrue(GameRecords.RECORD_BITS <= 8 * GameRecords.RECORD_BYTES, "records fit in RECORD_BYTES");
+        assertEquals(0, GameRecords.encode(new Game()), "empty game");
+        assertEquals(9, GameRecords.moveCount(GameRecords.RECORDS - 1), "last record");
+        assertThrows(IllegalArgumentException.class, () -> GameRecords.moveCount(GameRecords.RECORDS));
+        assertThrows(IllegalArgumentException.class, () -> GameRecords.moveCount(-1));
+    }
+
+    @Test
+    void everyRecordRoundTrips() {
+        int[] moves = new int[Bitboard.CELLS];
+        Game game = new Game();
+        for (int record = 0; record < GameRecords.RECORDS; record++) {
+            final int numMoves = GameRecords.decode(record, moves);
+            assertEquals(GameRecords.moveCount(record), numMoves, "moves in record " + record);
+
+            // Every sequence of distinct locations is a record, even one that continues after a win.
+            final int[] sequence = Arrays.copyOf(moves, numMoves);
+            assertEquals(numMoves, Arrays.stream(sequence).distinct().count(), "distinct moves in " + record);
+
+            if (GameRecords.replay(record, game)) {
+                assertEquals(numMoves, game.moveCount(), "moves replayed from " + record);
+                for (int i = 0; i < numMoves; i++) {
+                    assertEquals(sequence[i], game.historyAt(i), "move " + i + " of " + record);
+                }
+                assertEquals(record, GameRecords.encode(game), "re-encoded " + record);
+            }
+        }
+    }
+
+    @Test
+    void recordsAreOrdered() {
+        int[] first = new int[Bitboard.CELLS];
+        int[] second = new int[Bitboard.CELLS];
+        GameRecords.decode(1, first);
+        GameRecords.decode(2, second);
+        assertEquals(0, first[0], "first one-move record");
+        assertEquals(1, second[0], "second one-move record");
+    }
+
+    @Test
+    void replayStopsAfterWin() throws InvalidMoveException {
+        Game game = new Game();
+        for (int idx: new int[]{0, 3, 1, 4, 2}) game.move(game.findNextPlayer(), idx);
+        final int winningRecord = GameRecords.encode(game);
+
+        Game replayed = new Game();
+        assertTrue(GameRecords.replay(winningRecord, replayed), "winning game replays");
+        assertEquals(Game.PIECE_X, replayed.findWinner(), "X wins");
+        assertArrayEquals(game.getBoard(), replayed.getBoard(), "replayed board");
+    }
+
+    @Test
+    void restoredGameCannotBeEncoded() throws InvalidBoardException {
+        Game game = new Game(new Boolean[]{Game.PIECE_X, null, null, null, null, null, null, null, null});
+        assertThrows(IllegalArgumentException.class, () -> GameRecords.encode(game));
+    }
+}
@@ -310,6 +310,25 @@ class GameTest {
                 Boards.BOARD_O_WINS_SLASH,
                 Game.PIECE_O
         );
+        // Both players having a line cannot happen in play, but such a board can be restored.
+        static final TestParams TEST_BOTH_O_FIRST = new TestParams(
+                "both win; O's row 0 comes first",
+                new Boolean[]{
+                        Boards._O_, Boards._O_, Boards._O_,
+                        Boards._X_, Boards._X_, Boards._X_,
+                        Boards._X_, Boards.___, Boards.___,
+                },
+                Game.PIECE_O
+        );
+        static final TestParams TEST_BOTH_X_FIRST = new TestParams(
+                "both win; X's row 1 comes first",
+                new Boolean[]{
+                        Boards._X_, Boards.___, Boards.___,
+                        Boards._X_, Boards._X_, Boards._X_,
+                        Boards._O_, Boards._O_, Boards._O_,
+                },
+                Game.PIECE_X
+        );
 
         @Override
         public Stream<Arguments> provideArguments(ExtensionContext context) {
@@ -322,7 +341,9 @@ class GameTest {
                     TEST_WIN_ROW_1,
                     TEST_WIN_ROW_2,
                     TEST_WIN_BACKSLASH,
-                    TEST_WIN_SLASH
+                    TEST_WIN_SLASH,
+                    TEST_BOTH_O_FIRST,
+                    TEST_BOTH_X_FIRST
             ).map(Arguments::of);
         }
     }
@@ -509,6 +530,18 @@ class GameTest {
             assertArrayEquals(gameBoard, game.getBoard(), "initialized game board");
         }
 
+        @Test
+        void boardIsCopied() throws InvalidBoardException {
+            final Boolean[] gameBoard = Boards.BOARD_XO.clone();
+            Game game = new Game(gameBoard);
+
+            gameBoard[2] = Game.PIECE_X;
+            assertArrayEquals(Boards.BOARD_XO, game.getBoard(), "game unaffected by restored array");
+
+            game.getBoard()[2] = Game.PIECE_X;
+            assertArrayEquals(Boards.BOARD_XO, game.getBoard(), "game unaffected by returned array");
+        }
+
         @ParameterizedTest
         @ArgumentsSource(InvalidBoardTests.class)
         void invalidBoardInitialization(InvalidBoardTests.TestParams params) {
@@ -551,6 +584,20 @@ class GameTest {
                     "board with O added at index 1");
         }
 
+        @Test
+        void stateMatchesRestoredBoard() throws InvalidMoveException, InvalidBoardException {
+            Game game = new Game();
+            for (int idx: new int[]{4, 0, 8, 2, 1, 7, 3, 5, 6}) {
+                game.move(game.findNextPlayer(), idx);
+
+                Game restored = new Game(game.getBoard());
+                assertEquals(restored.findWinner(), game.findWinner(), "winner after move to " + idx);
+                assertEquals(restored.findNextPlayer(), game.findNextPlayer(), "nextPlayer after move to " + idx);
+            }
+            assertNull(game.findWinner(), "game ends in a draw");
+            assertNull(game.findNextPlayer(), "no moves remain");
+        }
+
         @ParameterizedTest
         @ArgumentsSource(InvalidMoveTests.class)
         void invalidMove(InvalidMoveTests.TestParams params) throws InvalidBoardException {
@@ -563,6 +610,184 @@ class GameTest {
             assertEquals(params.message, e.getMessage(), params.description + ": message");
             assertEquals(params.piece, e.getPiece(), params.description + ": piece");
             assertEquals(params.idx, e.getIdx(), params.description + ": idx");
+            assertEquals(0, e.getStackTrace().length, params.description + ": no stack trace");
+        }
+
+        @ParameterizedTest
+        @ArgumentsSource(InvalidMoveTests.class)
+        void invalidTryMove(InvalidMoveTests.TestParams params) throws InvalidBoardException {
+            Game game = new Game(params.board);
+
+            MoveResult result = game.tryMove(params.piece, params.idx);
+
+            assertNotEquals(MoveResult.OK, result, params.description + ": result");
+            assertEquals(params.message, result.getMessage(params.piece, game.findWinner()),
+                    params.description + ": message");
+            assertArrayEquals(params.board, game.getBoard(), params.description + ": board unchanged");
+        }
+
+        @Test
+        void validTryMove() {
+            Game game = new Game();
+            assertEquals(MoveResult.OK, game.tryMove(Game.PIECE_X, 0), "X moves to 0");
+            assertEquals(MoveResult.OK, game.tryMove(Game.PIECE_O, 1), "O moves to 1");
+            assertArrayEquals(Boards.BOARD_XO, game.getBoard(), "board with X at 0 and O at 1");
+        }
+
+        @Test
+        void legalMoves() throws InvalidBoardException {
+            Game game = new Game(Boards.BOARD_XO);
+            assertEquals(0b111_111_100, game.legalMovesMask(), "empty spaces");
+            assertTrue(game.isLegal(2), "empty space");
+            assertFalse(game.isLegal(1), "occupied space");
+            assertFalse(game.isLegal(-1), "invalid location");
+            assertFalse(game.isLegal(9), "invalid location");
+
+            Game won = new Game(Boards.BOARD_X_WINS_COL_0);
+            assertEquals(0, won.legalMovesMask(), "no moves after a win");
+            assertFalse(won.isLegal(5), "empty space after a win");
+        }
+
+        @Test
+        void legalMovesIterator() throws InvalidBoardException {
+            Game game = new Game(Boards.BOARD_XO);
+            MoveIterator moves = game.legalMoves();
+            for (int idx = 2; idx < 9; idx++) {
+                assertTrue(moves.hasNext(), "more moves before " + idx);
+                assertEquals(idx, moves.nextInt(), "next move");
+            }
+            assertFalse(moves.hasNext(), "no more moves");
+
+            MoveIterator reused = new MoveIterator();
+            assertSame(reused, game.legalMoves(reused), "iterator reused");
+            assertEquals(game.legalMovesMask(), reused.remainingMask(), "reset to the legal moves");
+            assertFalse(new Game(Boards.BOARD_X_WINS_COL_0).legalMoves(reused).hasNext(), "no moves after a win");
+        }
+    }
+
+    @Nested
+    class History {
+        @Test
+        void undoAndRedo() throws InvalidMoveException, InvalidBoardException {
+            Game game = new Game();
+            assertFalse(game.undo(), "nothing to undo in a new game");
+            assertFalse(game.redo(), "nothing to redo in a new game");
+
+            game.move(Game.PIECE_X, 0);
+            game.move(Game.PIECE_O, 1);
+            assertTrue(game.undo(), "undo O's move");
+            assertArrayEquals(Boards.BOARD_X, game.getBoard(), "board after undoing O's move");
+            assertEquals(Game.PIECE_O, game.findNextPlayer(), "O moves again");
+            assertTrue(game.undo(), "undo X's move");
+            assertArrayEquals(Boards.BOARD_EMPTY, game.getBoard(), "board after undoing X's move");
+            assertFalse(game.undo(), "nothing left to undo");
+
+            assertTrue(game.redo(), "redo X's move");
+            assertTrue(game.redo(), "redo O's move");
+            assertFalse(game.redo(), "nothing left to redo");
+            assertArrayEquals(Boards.BOARD_XO, game.getBoard(), "board after redoing both moves");
+        }
+
+        @Test
+        void undoWin() throws InvalidMoveException {
+            Game game = new Game();
+            for (int idx: new int[]{0, 1, 3, 2, 6}) {
+                game.move(game.findNextPlayer(), idx);
+            }
+            assertEquals(Game.PIECE_X, game.findWinner(), "X wins column 0");
+
+            assertTrue(game.undo(), "undo the winning move");
+            assertNull(game.findWinner(), "no winner after undo");
+            assertEquals(Game.PIECE_X, game.findNextPlayer(), "X moves again");
+
+            assertTrue(game.redo(), "redo the winning move");
+            assertEquals(Game.PIECE_X, game.findWinner(), "X wins again");
+            assertNull(game.findNextPlayer(), "game over again");
+        }
+
+        @Test
+        void newMoveDiscardsRedo() throws InvalidMoveException {
+            Game game = new Game();
+            game.move(Game.PIECE_X, 0);
+            game.move(Game.PIECE_O, 1);
+            game.undo();
+            game.move(Game.PIECE_O, 2);
+            assertFalse(game.redo(), "nothing to redo after a new move");
+            assertTrue(game.undo(), "undo the new move");
+            assertArrayEquals(Boards.BOARD_X, game.getBoard(), "board after undoing the new move");
+        }
+
+        @Test
+        void restoredBoardCannotBeUndone() throws InvalidBoardException {
+            Game game = new Game(Boards.BOARD_XO);
+            assertFalse(game.undo(), "moves before restoring cannot be undone");
+        }
+
+        @Test
+        void snapshots() throws InvalidMoveException, InvalidBoardException {
+            Game game = new Game(Boards.BOARD_XO);
+            final int snapshot = game.snapshot();
+
+            game.move(Game.PIECE_X, 4);
+            Game other = new Game();
+            other.restore(snapshot);
+            assertArrayEquals(Boards.BOARD_XO, other.getBoard(), "snapshot restored on another game");
+            assertEquals(Game.PIECE_X, other.findNextPlayer(), "next player restored");
+
+            game.restore(snapshot);
+            assertArrayEquals(Boards.BOARD_XO, game.getBoard(), "snapshot restored on the same game");
+            assertFalse(game.undo(), "history cleared by restore");
+
+            Game won = new Game(Boards.BOARD_X_WINS_COL_0);
+            game.restore(won.snapshot());
+            assertEquals(Game.PIECE_X, game.findWinner(), "winner restored");
+        }
+
+        @Test
+        void invalidSnapshots() {
+            Game game = new Game();
+            assertThrows(IllegalArgumentException.class, () -> game.restore(-1), "extra bits");
+            assertThrows(IllegalArgumentException.class, () -> game.restore(1 | 1 << 9), "X and O in one space");
+            assertThrows(IllegalArgumentException.class, () -> game.restore(1 << 9), "O moved first");
+            assertThrows(IllegalArgumentException.class, () -> game.restore(3), "X moved twice");
+        }
+
+        @Test
+        void codes() throws InvalidMoveException {
+            Game game = new Game();
+            assertEquals(0, game.encode(), "empty board");
+            game.move(Game.PIECE_X, 0);
+            game.move(Game.PIECE_O, 8);
+            assertEquals(1 + 2 * 6561, game.encode(), "X at 0, O at 8");
+            game.undo();
+            assertEquals(1, game.encode(), "after undo");
+            game.redo();
+            assertEquals(1 + 2 * 6561, game.encode(), "after redo");
+            game.restore(Bitboard.bit(false, 4));
+            assertEquals(81, game.encode(), "after restore");
+        }
+
+        @Test
+        void encodeAndDecode() {
+            // Every code of a board on which the players have taken turns decodes to a game
+            // with that code; every other code is rejected.
+            int valid = 0;
+            for (int code = 0; code < Game.CODES; code++) {
+                final int bits = Bitboard.fromIndex(code);
+                final int balance = Integer.bitCount(Bitboard.xMask(bits)) - Integer.bitCount(Bitboard.oMask(bits));
+                if (balance == 0 || balance == 1) {
+                    Game game = Game.decode(code);
+                    assertEquals(code, game.encode(), "code " + code);
+                    assertEquals(bits, game.snapshot(), "board " + code);
+                    valid++;
+                } else {
+                    final int invalid = code;
+                    assertThrows(IllegalArgumentException.class, () -> Game.decode(invalid), "code " + code);
+                }
+            }
+            assertEquals(6046, valid, "boards on which the players have taken turns");
+            assertThrows(IllegalArgumentException.class, () -> Game.decode(-1), "negative code");
+            assertThrows(IllegalArgumentException.class, () -> Game.decode(Game.CODES), "code too large");
         }
     }
 
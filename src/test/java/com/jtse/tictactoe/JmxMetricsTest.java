@@ -0,0 +1,144 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-test class JmxMetrics, as installed metrics.
+ */
+class JmxMetricsTest {
+    private final JmxMetrics metrics = new JmxMetrics();
+
+    @BeforeEach
+    void install() {
+        Metrics.install(metrics);
+    }
+
+    @AfterEach
+    void uninstall() {
+        Metrics.install(Metrics.NONE);
+    }
+
+    @Test
+    void gameMetrics() {
+        Game game = new Game();
+        game.tryMove(Game.PIECE_X, 0);
+        game.tryMove(Game.PIECE_X, 1);
+        game.tryMove(Game.PIECE_O, 0);
+        game.tryMove(Game.PIECE_O, 3);
+        game.tryMove(Game.PIECE_X, 1);
+        game.tryMove(Game.PIECE_O, 4);
+        game.tryMove(Game.PIECE_X, 2); // X wins along the top row
+        game.tryMove(Game.PIECE_O, 5);
+
+        assertEquals(5, metrics.getMovesApplied(), "moves applied");
+        assertEquals(1, metrics.getInvalidMoves(MoveResult.OUT_OF_TURN), "moves out of turn");
+        assertEquals(1, metrics.getInvalidMoves(MoveResult.OCCUPIED), "moves to occupied spaces");
+        assertEquals(1, metrics.getInvalidMoves(MoveResult.ALREADY_WON), "moves after the game was won");
+        assertEquals(1, metrics.getXWins(), "X wins");
+        assertEquals(0, metrics.getOWins(), "O wins");
+        assertEquals(0, metrics.getDraws(), "draws");
+    }
+
+    @Test
+    void gameOverReportedOnce() {
+        Game game = new Game();
+        for (int idx: new int[] {0, 3, 1, 4}) game.tryMove(game.findNextPlayer(), idx);
+        game.tryMove(Game.PIECE_X, 2); // X wins along the top row
+        game.undo();
+        game.tryMove(Game.PIECE_X, 2);
+        game.undo();
+        game.redo();
+
+        assertEquals(6, metrics.getMovesApplied(), "moves applied");
+        assertEquals(1, metrics.getXWins(), "X wins");
+
+        game.reset();
+        for (int idx: new int[] {0, 3, 1, 4, 2}) game.tryMove(game.findNextPlayer(), idx);
+        assertEquals(2, metrics.getXWins(), "X wins in a new game");
+    }
+
+    @Test
+    void internalGamesNotMeasured() {
+        new Simulator(MovePolicy.random(), MovePolicy.random()).run(1_000, 1);
+        new Tournament(Arrays.asList(new Player("a", MovePolicy.random()), new Player("b", MovePolicy.perfect())),
+                100, 1, TimeUnit.SECONDS).roundRobin(2);
+        Game recorded = new Game();
+        for (int idx: new int[] {0, 3, 1, 4, 2}) recorded.playMove(recorded.findNextPlayer(), idx);
+        GameRecords.replay(GameRecords.encode(recorded), new Game());
+
+        assertEquals(0, metrics.getMovesApplied(), "moves applied");
+        for (MoveResult reason: MoveResult.values()) {
+            if (reason != MoveResult.OK) assertEquals(0, metrics.getInvalidMoves(reason), "invalid moves: " + reason);
+        }
+        assertEquals(0, metrics.getXWins() + metrics.getOWins() + metrics.getDraws(), "games over");
+    }
+
+    @Test
+    void sessionGamesMeasured() {
+        SessionRegistry sessions = new SessionRegistry(16, 1, TimeUnit.MINUTES);
+        sessions.put(1, new Game());
+        for (int idx: new int[] {0, 3, 1, 4}) sessions.tryMove(1, sessions.get(1).findNextPlayer(), idx);
+        sessions.tryMove(1, Game.PIECE_O, 5);
+        sessions.tryMove(1, Game.PIECE_X, 2); // X wins along the top row
+
+        SharedGame shared = new SharedGame();
+        for (int idx: new int[] {3, 0, 4, 1}) shared.tryMove(shared.findNextPlayer(), idx);
+        shared.tryMove(Game.PIECE_X, 0);
+        shared.tryMove(Game.PIECE_X, 5); // X wins along the middle row
+        shared.tryMove(Game.PIECE_O, 2);
+
+        assertEquals(10, metrics.getMovesApplied(), "moves applied");
+        assertEquals(1, metrics.getInvalidMoves(MoveResult.OUT_OF_TURN), "moves out of turn");
+        assertEquals(1, metrics.getInvalidMoves(MoveResult.OCCUPIED), "moves to occupied spaces");
+        assertEquals(1, metrics.getInvalidMoves(MoveResult.ALREADY_WON), "moves after the game was won");
+        assertEquals(2, metrics.getXWins(), "X wins");
+    }
+
+    @Test
+    void replMetrics() throws Exception {
+        REPL repl = new REPL();
+        repl.eval("move x 4");
+        repl.eval("move x 5");
+        repl.eval("undo");
+        repl.eval("foo");
+
+        assertEquals(2, metrics.getCommands(Metrics.Command.MOVE), "move commands");
+        assertEquals(1, metrics.getCommands(Metrics.Command.UNDO), "undo commands");
+        assertEquals(1, metrics.getCommands(Metrics.Command.INVALID), "invalid commands");
+        assertEquals(0, metrics.getCommands(Metrics.Command.NEW), "new commands");
+        assertTrue(metrics.getCommandNanos(Metrics.Command.MOVE) >= metrics.getCommandMaxNanos(Metrics.Command.MOVE),
+                "total latency includes the greatest");
+        assertEquals(1, metrics.getMovesApplied(), "moves applied");
+    }
+
+    @Test
+    void jmxAttributes() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        ObjectName name = new ObjectName(JmxMetrics.OBJECT_NAME);
+        metrics.register(server, name);
+
+        new Game().tryMove(Game.PIECE_O, 0);
+        new REPL().eval("new");
+
+        assertEquals(1L, server.getAttribute(name, "InvalidMoves.OUT_OF_TURN"), "invalid moves attribute");
+        assertEquals(0L, server.getAttribute(name, "MovesApplied"), "moves applied attribute");
+        assertEquals(1L, server.getAttribute(name, "Commands.NEW"), "commands attribute");
+        assertEquals(1 + (MoveResult.values().length - 1) + 3 + 3 * Metrics.Command.values().length,
+                server.getMBeanInfo(name).getAttributes().length, "attributes listed");
+
+        ReflectionException e = assertThrows(ReflectionException.class,
+                () -> server.invoke(name, "reset", null, null), "no operations");
+        assertTrue(e.getTargetException() instanceof NoSuchMethodException, "operation not found");
+    }
+}
@@ -0,0 +1,98 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-test class MCTS.
+ */
+class MCTSTest {
+    private static final ForkJoinPool single = new ForkJoinPool(1);
+    private static final ForkJoinPool multiple = new ForkJoinPool(4);
+
+    @AfterAll
+    static void shutdown() {
+        single.shutdown();
+        multiple.shutdown();
+    }
+
+    private static MCTS player(int iterations, ForkJoinPool pool) {
+        return new MCTS(iterations, 1, TimeUnit.DAYS, pool);
+    }
+
+    private static Game game(int... moves) throws InvalidMoveException {
+        Game game = new Game();
+        for (int idx: moves) game.move(game.findNextPlayer(), idx);
+        return game;
+    }
+
+    @Test
+    void winsInOne() throws InvalidMoveException {
+        // X has 0 and 1, and O has 3 and 4: X wins at 2 (and O would win at 5).
+        assertEquals(2, player(2000, single).chooseMove(game(0, 3, 1, 4), new Random(1)), "winning move");
+    }
+
+    @Test
+    void blocks() throws InvalidMoveException {
+        // X has 0 and 1: O must block at 2.
+        assertEquals(2, player(5000, single).chooseMove(game(0, 4, 1), new Random(2)), "blocking move");
+    }
+
+    @Test
+    void deterministic() throws InvalidMoveException {
+        final Game game = game(4);
+        assertEquals(player(3000, single).chooseMove(game, new Random(3)),
+                player(3000, single).chooseMove(game, new Random(3)), "same seed, same move");
+    }
+
+    @Test
+    void largerBoard() {
+        // On a 9x9 board, needing 4 in a row, X has 3 in a row with both ends open.
+        MNKGame game = new MNKGame(9, 9, 4);
+        for (int idx: new int[] {40, 0, 41, 80, 42, 8}) {
+            assertEquals(MoveResult.OK, game.tryMove(game.findNextPlayer(), idx), "setup move");
+        }
+        final int move = player(20_000, multiple).chooseMove(game, new Random(4));
+        assertTrue(move == 39 || move == 43, "winning move, not " + move);
+        assertEquals(6, game.moveCount(), "game not modified");
+    }
+
+    @Test
+    void timeBudget() {
+        MCTS player = new MCTS(Integer.MAX_VALUE, 50, TimeUnit.MILLISECONDS, multiple);
+        final long start = System.nanoTime();
+        final int move = player.chooseMove(new MNKGame(15, 15, 5), new Random(5));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "search stopped");
+        assertTrue(move >= 0 && move < 15 * 15, "move on the board");
+    }
+
+    @Test
+    void expiredTimeBudget() {
+        MCTS player = new MCTS(1000, 1, TimeUnit.NANOSECONDS, single);
+        for (int seed = 0; seed < 100; seed++) {
+            final int move = player.chooseMove(new Game(), new Random(seed));
+            assertTrue(move >= 0 && move < Bitboard.CELLS, "move on the board");
+        }
+    }
+
+    @Test
+    void beatsRandom() {
+        Simulator.Statistics stats = new Simulator(player(2000, single), MovePolicy.random(), single).run(20, 6);
+        assertTrue(stats.getXWins() > stats.getOWins(), "X wins more often");
+        assertEquals(20, stats.getGames(), "games");
+    }
+
+    @Test
+    void invalid() throws InvalidMoveException {
+        assertThrows(IllegalStateException.class,
+                () -> player(100, single).chooseMove(game(0, 3, 1, 4, 2), new Random()), "game over");
+        assertThrows(IllegalArgumentException.class, () -> new MCTS(0, 1, TimeUnit.SECONDS), "no iterations");
+        assertThrows(IllegalArgumentException.class, () -> new MCTS(1, 0, TimeUnit.SECONDS), "no time");
+    }
+}
@@ -0,0 +1,104 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-test class MNKGame.
+ */
+class MNKGameTest {
+    // Plays alternating moves, X first, failing the test if any move is invalid.
+    private static void play(MNKGame game, int... moves) throws InvalidMoveException {
+        for (int idx: moves) {
+            game.move(game.findNextPlayer(), idx);
+        }
+    }
+
+    @Test
+    void invalidDimensions() {
+        assertThrows(IllegalArgumentException.class, () -> new MNKGame(0, 3, 3), "zero width");
+        assertThrows(IllegalArgumentException.class, () -> new MNKGame(3, 3, 0), "zero k");
+        assertThrows(IllegalArgumentException.class, () -> new MNKGame(3, 4, 5), "k too long");
+    }
+
+    @Test
+    void matchesGame() {
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            Game game = new Game();
+            MNKGame mnkGame = new MNKGame(3, 3, 3);
+            while (game.findNextPlayer() != null) {
+                final int idx = random.nextInt(10) - 1; // sometimes invalid
+                final Boolean piece = random.nextInt(4) == 0 ? Game.PIECE_O : game.findNextPlayer();
+                assertEquals(game.tryMove(piece, idx), mnkGame.tryMove(piece, idx), "move to " + idx);
+                assertArrayEquals(game.getBoard(), mnkGame.getBoard(), "board");
+                assertEquals(game.findWinner(), mnkGame.findWinner(), "winner");
+                assertEquals(game.findNextPlayer(), mnkGame.findNextPlayer(), "next player");
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "across,    0, 1",
+            "down,      0, 15",
+            "diagonal,  0, 16",
+            "anti-diagonal, 14, 14",
+    })
+    void fiveInARow(String description, int start, int step) throws InvalidMoveException {
+        MNKGame game = new MNKGame(15, 15, 5);
+        final int start2 = start + 7 * 15; // O plays a parallel line, far enough away not to block
+        for (int i = 0; i < 4; i++) {
+            play(game, start + i * step, start2 + i * step);
+        }
+        assertNull(game.findWinner(), description + ": 4 in a row");
+
+        play(game, start + 4 * step);
+        assertEquals(Game.PIECE_X, game.findWinner(), description + ": 5 in a row");
+        assertNull(game.findNextPlayer(), description + ": game over");
+        assertEquals(MoveResult.ALREADY_WON, game.tryMove(Game.PIECE_O, 200), description + ": no more moves");
+    }
+
+    @Test
+    void linesDoNotWrap() throws InvalidMoveException {
+        MNKGame game = new MNKGame(5, 5, 3);
+        // X at 3, 4, and 5: the end of row 0 and the start of row 1.
+        play(game, 3, 10, 4, 11, 5);
+        assertNull(game.findWinner(), "no win across rows");
+    }
+
+    @Test
+    void gapBreaksLine() throws InvalidMoveException {
+        MNKGame game = new MNKGame(7, 1, 4);
+        // X at 0, 1, 3, and 4; O at 6 and 5.
+        play(game, 0, 6, 1, 5, 3);
+        assertNull(game.findWinner(), "no win yet");
+        assertEquals(MoveResult.OK, game.tryMove(Game.PIECE_O, 2), "O blocks");
+        assertNull(game.findWinner(), "no win with a gap");
+    }
+
+    @Test
+    void draw() throws InvalidMoveException {
+        MNKGame full = new MNKGame(1, 2, 2);
+        play(full, 0, 1);
+        assertNull(full.findWinner(), "no winner");
+        assertNull(full.findNextPlayer(), "draw");
+        assertEquals(MoveResult.DRAW, full.tryMove(Game.PIECE_X, 0), "no more moves");
+    }
+
+    @Test
+    void largeBoard() throws InvalidMoveException {
+        MNKGame game = new MNKGame(19, 19, 5);
+        play(game, 360, 0, 359, 1, 358, 2, 357, 3);
+        assertNull(game.findWinner(), "4 in a row at the end of the board");
+        play(game, 356);
+        assertEquals(Game.PIECE_X, game.findWinner(), "5 in a row at the end of the board");
+        assertFalse(game.isLegal(355), "no moves after a win");
+        assertThrows(IndexOutOfBoundsException.class, () -> game.pieceAt(361), "off the board");
+    }
+}
@@ -0,0 +1,53 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-test class MoveIterator.
+ */
+class MoveIteratorTest {
+    @Test
+    void lowestToHighest() {
+        MoveIterator moves = new MoveIterator(0b101_010_001);
+        assertEquals(4, moves.remainingCount(), "count");
+
+        List<Integer> locations = new ArrayList<>();
+        moves.forEachRemaining((int idx) -> locations.add(idx));
+        assertEquals(Arrays.asList(0, 4, 6, 8), locations, "locations");
+        assertEquals(0, moves.remainingMask(), "nothing remaining");
+    }
+
+    @Test
+    void empty() {
+        MoveIterator moves = new MoveIterator();
+        assertFalse(moves.hasNext(), "no moves");
+        assertThrows(NoSuchElementException.class, moves::nextInt);
+    }
+
+    @Test
+    void reset() {
+        MoveIterator moves = new MoveIterator(0b11);
+        assertEquals(0, moves.nextInt(), "first move");
+        assertSame(moves, moves.reset(1 << 8), "reset returns the iterator");
+        assertEquals(8, moves.nextInt(), "move after reset");
+        assertFalse(moves.hasNext(), "no more moves");
+    }
+
+    @Test
+    void everyMask() {
+        for (int mask = 0; mask < 1 << Bitboard.CELLS; mask++) {
+            int rebuilt = 0;
+            for (MoveIterator moves = new MoveIterator(mask); moves.hasNext(); ) {
+                rebuilt |= 1 << moves.nextInt();
+            }
+            assertEquals(mask, rebuilt, "mask " + mask);
+        }
+    }
+}
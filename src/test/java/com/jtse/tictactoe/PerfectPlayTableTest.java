@@ -0,0 +1,44 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-test class PerfectPlayTable.
+ *
+ * The table's values and best moves are checked against a brute-force search by
+ * {@code SolverTest}, which queries the table through {@code Solver}.
+ */
+class PerfectPlayTableTest {
+    @Test
+    void size() {
+        assertEquals(5478, PerfectPlayTable.size(), "number of legal positions");
+    }
+
+    @Test
+    void indexRoundTrip() {
+        for (int index = 0; index < Bitboard.INDEXES; index++) {
+            assertEquals(index, Bitboard.index(Bitboard.fromIndex(index)), "index " + index);
+        }
+    }
+
+    @Test
+    void entriesAreConsistent() {
+        for (int index = 0; index < Bitboard.INDEXES; index++) {
+            final int bits = Bitboard.fromIndex(index);
+            final int entry = PerfectPlayTable.entry(bits);
+            if (!PerfectPlayTable.isLegal(entry)) {
+                assertEquals(0, entry, "illegal position " + index + " has no entry");
+                continue;
+            }
+
+            final int empty = Bitboard.empty(bits);
+            final int bestMoves = PerfectPlayTable.bestMoves(entry);
+            final int distance = PerfectPlayTable.distanceToEnd(entry);
+            assertEquals(0, bestMoves & ~empty, "best moves of " + index + " are empty spaces");
+            assertEquals(bestMoves == 0, distance == 0, "position " + index + " is over iff no moves");
+            assertTrue(distance <= Integer.bitCount(empty), "distance of " + index + " fits the board");
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test ProtocolServer over the loopback interface.
+ */
+class ProtocolServerTest {
+    private ProtocolServer server;
+    private Thread serverThread;
+
+    // A blocking client for one connection.
+    private static class Client implements AutoCloseable {
+        final Socket socket;
+        final DataInputStream in;
+        final OutputStream out;
+
+        Client(ProtocolServer server) throws IOException {
+            socket = new Socket();
+            socket.connect(server.getLocalAddress(), 5000);
+            socket.setSoTimeout(5000);
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(socket.getInputStream());
+            out = socket.getOutputStream();
+        }
+
+        int request(byte... frame) throws IOException {
+            out.write(frame);
+            out.flush();
+            return in.readInt();
+        }
+
+        int move(char piece, int idx) throws IOException {
+            return request(ProtocolServer.OP_MOVE, (byte) piece, (byte) idx);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    private static int result(int response) {
+        return response >>> 24;
+    }
+
+    private static int status(int response) {
+        return (response >>> 18) & 7;
+    }
+
+    private static int board(int response) {
+        return response & ((1 << 18) - 1);
+    }
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new ProtocolServer(new InetSocketAddress("127.0.0.1", 0));
+        serverThread = new Thread(server, "ProtocolServerTest");
+        serverThread.start();
+    }
+
+    @AfterEach
+    void stopServer() throws InterruptedException {
+        server.close();
+        serverThread.join(5000);
+        assertFalse(serverThread.isAlive(), "server stopped");
+    }
+
+    @Test
+    void playGame() throws IOException {
+        try (Client client = new Client(server)) {
+            int response = client.request(ProtocolServer.OP_STATUS);
+            assertEquals(ProtocolServer.STATUS_X_NEXT, status(response), "new game status");
+            assertEquals(0, board(response), "new game board");
+
+            response = client.move('X', 4);
+            assertEquals(MoveResult.OK.ordinal(), result(response), "move result");
+            assertEquals(ProtocolServer.STATUS_O_NEXT, status(response), "status after move");
+            assertEquals(Bitboard.bit(false, 4), board(response), "board after move");
+
+            assertEquals(MoveResult.OCCUPIED.ordinal(), result(client.move('O', 4)), "occupied");
+            assertEquals(MoveResult.OUT_OF_TURN.ordinal(), result(client.move('X', 0)), "out of turn");
+            assertEquals(MoveResult.INVALID_LOCATION.ordinal(), result(client.move('O', 9)), "off the board");
+            assertEquals(MoveResult.NO_PIECE.ordinal(), result(client.move('?', 0)), "no piece");
+
+            client.move('O', 0);
+            client.move('X', 2);
+            client.move('O', 1);
+            response = client.move('X', 6); // X wins along the 2-4-6 diagonal
+            assertEquals(ProtocolServer.STATUS_X_WON, status(response), "X won");
+            assertEquals(MoveResult.ALREADY_WON.ordinal(), result(client.move('O', 8)), "already won");
+            assertEquals(response, client.request(ProtocolServer.OP_BOARD), "board");
+
+            response = client.request(ProtocolServer.OP_NEW);
+            assertEquals(ProtocolServer.STATUS_X_NEXT, status(response), "new game");
+            assertEquals(0, board(response), "new board");
+        }
+    }
+
+    @Test
+    void pipelined() throws IOException {
+        // Many games' worth of requests at once, far more than fit in the output buffer,
+        // with move frames split across writes.
+        final int games = 20_000;
+        Game game = new Game();
+        ByteArrayOutputStream requests = new ByteArrayOutputStream();
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < games; i++) {
+            game.reset();
+            requests.write(ProtocolServer.OP_NEW);
+            writeInt(expected, ProtocolServer.response(game, 0));
+            for (int idx: new int[] {4, 0, 8, 2, 1, 7, 6, 3, 5}) {
+                final Boolean piece = game.findNextPlayer();
+                requests.write(ProtocolServer.OP_MOVE);
+                requests.write(piece == Game.PIECE_O ? 'O' : 'X');
+                requests.write(idx);
+                writeInt(expected, ProtocolServer.response(game, game.tryMove(piece, idx).ordinal()));
+            }
+        }
+
+        try (Client client = new Client(server)) {
+            final byte[] bytes = requests.toByteArray();
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int offset = 0; offset < bytes.length; offset += 1001) {
+                        client.out.write(bytes, offset, Math.min(1001, bytes.length - offset));
+                    }
+                    client.out.flush();
+                } catch (IOException e) {
+                    // reported by the reader
+                }
+            });
+            writer.start();
+
+            byte[] responses = new byte[expected.size()];
+            client.in.readFully(responses);
+            assertArrayEquals(expected.toByteArray(), responses, "responses");
+        }
+    }
+
+    @Test
+    void slowReader() throws Exception {
+        // The client reads nothing until the server has had to hold back responses.
+        final int requests = 1 << 20;
+        final int expected = ProtocolServer.response(new Game(), 0);
+        try (Client client = new Client(server)) {
+            final byte[] bytes = new byte[requests];
+            Arrays.fill(bytes, ProtocolServer.OP_STATUS);
+            Thread writer = new Thread(() -> {
+                try {
+                    client.out.write(bytes);
+                    client.out.flush();
+                } catch (IOException e) {
+                    // reported by the reader
+                }
+            });
+            writer.start();
+            Thread.sleep(200);
+
+            for (int i = 0; i < requests; i++) {
+                assertEquals(expected, client.in.readInt(), "response " + i);
+            }
+            writer.join(5000);
+        }
+    }
+
+    @Test
+    void invalidOpcode() throws IOException {
+        try (Client client = new Client(server)) {
+            final int response = client.request((byte) 'Z');
+            assertEquals(ProtocolServer.RESULT_INVALID_OP, result(response), "invalid opcode");
+            assertEquals(-1, client.in.read(), "connection closed");
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
@@ -0,0 +1,172 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test REPLServer over the loopback interface.
+ */
+class REPLServerTest {
+    private static final String EMPTY_BOARD =
+              "     |   |   \n"
+            + "  ---+---+---\n"
+            + "     |   |   \n"
+            + "  ---+---+---\n"
+            + "     |   |   \n";
+
+    private REPLServer server;
+    private Thread serverThread;
+
+    // A blocking client for one connection.
+    private static class Client implements AutoCloseable {
+        final Socket socket;
+        final BufferedReader in;
+        final OutputStream out;
+
+        Client(REPLServer server) throws IOException {
+            socket = new Socket();
+            socket.connect(server.getLocalAddress(), 5000);
+            socket.setSoTimeout(5000);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = socket.getOutputStream();
+        }
+
+        void send(String line) throws IOException {
+            out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+
+        // Reads everything up to and including the next prompt.
+        String readToPrompt() throws IOException {
+            StringBuilder text = new StringBuilder();
+            while (text.length() < 2 || !text.substring(text.length() - 2).equals("> ")) {
+                int c = in.read();
+                if (c < 0) throw new IOException("connection closed after: " + text);
+                text.append((char) c);
+            }
+            return text.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new REPLServer(new InetSocketAddress("127.0.0.1", 0));
+        serverThread = new Thread(server, "REPLServerTest");
+        serverThread.start();
+    }
+
+    @AfterEach
+    void stopServer() throws InterruptedException {
+        server.close();
+        serverThread.join(5000);
+        assertFalse(serverThread.isAlive(), "server stopped");
+    }
+
+    @Test
+    void session() throws IOException {
+        try (Client client = new Client(server)) {
+            assertEquals(EMPTY_BOARD + "\n'X' goes next\n> ", client.readToPrompt(), "initial prompt");
+
+            client.send("move X 4");
+            String response = client.readToPrompt();
+            assertTrue(response.startsWith("OK\n\n"), "move response: " + response);
+            assertTrue(response.endsWith("'O' goes next\n> "), "status after move: " + response);
+
+            client.send("move X 0");
+            assertTrue(client.readToPrompt().startsWith("'X' has moved out of turn\n\n"), "invalid move");
+
+            client.send("exit");
+            assertEquals(-1, client.in.read(), "connection closed on exit");
+        }
+    }
+
+    @Test
+    void independentSessions() throws IOException {
+        List<Client> clients = new ArrayList<>();
+        try {
+            for (int i = 0; i < 100; i++) {
+                Client client = new Client(server);
+                clients.add(client);
+                client.readToPrompt();
+            }
+
+            // Each client makes a different first move; every one of them is X's move.
+            for (int i = 0; i < clients.size(); i++) {
+                clients.get(i).send("move x " + (i % 9));
+            }
+            for (Client client: clients) {
+                String response = client.readToPrompt();
+                assertTrue(response.startsWith("OK\n\n"), "move response: " + response);
+            }
+        } finally {
+            for (Client client: clients) client.close();
+        }
+    }
+
+    @Test
+    void pipelinedCommands() throws IOException {
+        try (Client client = new Client(server)) {
+            client.readToPrompt();
+            client.send("move x 0\nmove o 3\nmove x 1\nmove o 4\nmove x 2");
+            for (int i = 0; i < 4; i++) {
+                assertTrue(client.readToPrompt().startsWith("OK\n\n"), "response " + i);
+            }
+            assertTrue(client.readToPrompt().endsWith("'X' wins!\n> "), "X wins");
+        }
+    }
+
+    @Test
+    void aiCommands() throws IOException {
+        try (Client client = new Client(server)) {
+            client.readToPrompt();
+            client.send("ai\nAI\nmove x 9");
+            assertTrue(client.readToPrompt().startsWith("ai: 'X' moves to "), "X's move");
+            String response = client.readToPrompt();
+            assertTrue(response.startsWith("ai: 'O' moves to "), "O's move: " + response);
+            assertTrue(response.endsWith("'X' goes next\n> "), "status after both moves: " + response);
+            assertTrue(client.readToPrompt().startsWith("invalid location\n\n"), "command after the searches");
+        }
+    }
+
+    @Test
+    void otherSessionsServedDuringSearch() throws IOException {
+        try (Client searching = new Client(server); Client other = new Client(server)) {
+            searching.readToPrompt();
+            other.readToPrompt();
+
+            searching.send("ai");
+            other.send("move x 4");
+            assertTrue(other.readToPrompt().startsWith("OK\n\n"), "other session's move");
+            assertTrue(searching.readToPrompt().startsWith("ai: 'X' moves to "), "search result");
+        }
+    }
+
+    @Test
+    void overlongLine() throws IOException {
+        try (Client client = new Client(server)) {
+            client.readToPrompt();
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i <= REPLServer.MAX_LINE_LENGTH; i++) line.append('x');
+            client.send(line.toString());
+            assertEquals(-1, client.in.read(), "connection closed");
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.jtse.tictactoe;
 
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -63,6 +69,48 @@ class REPLTest {
                 "move: blah is not a valid location (must be between 0 and 8)",
                 new char[]{' ',' ',' ', ' ',' ',' ', ' ',' ',' '},
                 "'X' goes next");
+        static final TestParams TEST_HINT_NEW_GAME = new TestParams(
+                "hint for a new game",
+                "hint",
+                "hint: 'X' should move to 0, 1, 2, 3, 4, 5, 6, 7, 8 (with perfect play, the game is a draw)",
+                new char[]{' ',' ',' ', ' ',' ',' ', ' ',' ',' '},
+                "'X' goes next");
+        static final TestParams TEST_HINT_WIN = new TestParams(
+                "hint when X can win",
+                "HINT",
+                "hint: 'X' should move to 8 (with perfect play, 'X' wins)",
+                new char[]{'X','O',' ', ' ','X','O', ' ',' ',' '},
+                "'X' goes next");
+        static final TestParams TEST_HINT_GAME_OVER = new TestParams(
+                "hint after X has won",
+                "hint",
+                "hint: the game is over",
+                new char[]{'X','O',' ', ' ','X','O', ' ',' ','X'},
+                "'X' wins!");
+        static final TestParams TEST_UNDO_NEW_GAME = new TestParams(
+                "undo in a new game",
+                "undo",
+                "undo: there is no move to undo",
+                new char[]{' ',' ',' ', ' ',' ',' ', ' ',' ',' '},
+                "'X' goes next");
+        static final TestParams TEST_UNDO_WIN = new TestParams(
+                "undo X's winning move",
+                "undo",
+                "OK",
+                new char[]{'X','O',' ', ' ','X','O', ' ',' ',' '},
+                "'X' goes next");
+        static final TestParams TEST_REDO_WIN = new TestParams(
+                "redo X's winning move",
+                "Redo",
+                "OK",
+                new char[]{'X','O',' ', ' ','X','O', ' ',' ','X'},
+                "'X' wins!");
+        static final TestParams TEST_REDO_NOTHING = new TestParams(
+                "redo with nothing undone",
+                "redo",
+                "redo: there is no move to redo",
+                new char[]{'X','O',' ', ' ','X','O', ' ',' ','X'},
+                "'X' wins!");
         static final TestParams TEST_MOVE_1 = new TestParams(
                 "X moves to idx 0",
                 "move X 0",
@@ -154,13 +202,20 @@ class REPLTest {
                     TEST_INVALID_COMMAND,
                     TEST_INVALID_MOVE_PIECE,
                     TEST_INVALID_MOVE_LOCATION,
+                    TEST_HINT_NEW_GAME,
+                    TEST_UNDO_NEW_GAME,
                     TEST_MOVE_1,
                     TEST_MOVE_2,
                     TEST_INVALID_MOVE_3,
                     TEST_MOVE_3,
                     TEST_MOVE_4a,
+                    TEST_HINT_WIN,
                     TEST_MOVE_5a,
                     TEST_INVALID_MOVE_6,
+                    TEST_HINT_GAME_OVER,
+                    TEST_UNDO_WIN,
+                    TEST_REDO_WIN,
+                    TEST_REDO_NOTHING,
                     TEST_NEW_GAME,
                     TEST_INVALID_COMMAND,
                     TEST_MOVE_1,
@@ -186,6 +241,102 @@ class REPLTest {
             + "   "+board[6]+" | "+board[7]+" | "+board[8]+" \n";
     }
 
+    @Nested
+    class TestAI {
+        @Test
+        void blocks() throws Exception {
+            REPL repl = new REPL();
+            repl.eval("move x 0");
+            repl.eval("move o 4");
+            repl.eval("move x 1");
+            assertEquals("ai: 'O' moves to 2", repl.eval("AI"), "blocking move");
+            assertEquals("'X' goes next", repl.findGameStatus(), "status");
+        }
+
+        @Test
+        void gameOver() throws Exception {
+            REPL repl = new REPL();
+            for (String command: new String[] {"move x 0", "move o 3", "move x 1", "move o 4", "move x 2"}) {
+                repl.eval(command);
+            }
+            assertEquals("ai: the game is over", repl.eval("ai"), "no move");
+        }
+    }
+
+    @Nested
+    class TestBlankLines {
+        @Test
+        void eval() throws Exception {
+            REPL repl = new REPL();
+            assertEquals("Invalid command: ", repl.eval(""), "empty line");
+            assertEquals("Invalid command: ", repl.eval(new StringBuilder(" \t ")), "whitespace");
+        }
+
+        @Test
+        void batch() throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new REPL(new ByteArrayInputStream("\n \nnew\n\t\n".getBytes(StandardCharsets.UTF_8)), new PrintStream(out))
+                    .runBatch(REPL.BatchOutput.RESULTS);
+            assertEquals("OK\n", new String(out.toByteArray(), StandardCharsets.UTF_8), "blank lines skipped");
+        }
+    }
+
+    @Nested
+    class TestBatch {
+        // Runs the command tests as a single batch.
+        private String runBatch(REPL.BatchOutput output, String trailer) throws IOException {
+            StringBuilder input = new StringBuilder();
+            new CommandTests().provideArguments(null).forEach(arguments ->
+                    input.append(((CommandTests.TestParams) arguments.get()[0]).command).append("\r\n\n"));
+            input.append(trailer);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            REPL repl = new REPL(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)),
+                    new PrintStream(out));
+            repl.runBatch(output);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        @Test
+        void results() throws IOException {
+            StringBuilder expected = new StringBuilder();
+            new CommandTests().provideArguments(null).forEach(arguments ->
+                    expected.append(((CommandTests.TestParams) arguments.get()[0]).response).append('\n'));
+
+            assertEquals(expected + "the game is a draw\n", runBatch(REPL.BatchOutput.RESULTS, "move x 4"),
+                    "results, with a final line without a newline");
+            assertEquals(expected.toString(), runBatch(REPL.BatchOutput.RESULTS, "exit\nmove x 4\n"),
+                    "results up to exit");
+        }
+
+        @Test
+        void finalBoard() throws IOException {
+            final CommandTests.TestParams last = CommandTests.TEST_INVALID_MOVE_10;
+            assertEquals(drawBoard(last.board) + "\n" + last.gameStatus + "\n",
+                    runBatch(REPL.BatchOutput.FINAL_BOARD, ""), "final board");
+        }
+
+        @Test
+        void longInput() throws IOException {
+            // Enough commands, and a line long enough, to refill and grow the input buffer.
+            StringBuilder input = new StringBuilder();
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < 20_000; i++) {
+                input.append("new\nmove x 0\nmove o 0\n");
+                expected.append("OK\nOK\nthe space is already occupied\n");
+            }
+            input.append("move o ");
+            for (int i = 0; i < 100_000; i++) input.append('0');
+            input.append('4');
+            expected.append("OK\n");
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new REPL(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)), new PrintStream(out))
+                    .runBatch(REPL.BatchOutput.RESULTS);
+            assertEquals(expected.toString(), new String(out.toByteArray(), StandardCharsets.UTF_8), "results");
+        }
+    }
+
     @Nested
     @TestInstance(TestInstance.Lifecycle.PER_CLASS)
     class TestCommands {
@@ -196,6 +347,10 @@ class REPLTest {
         void testCommands(CommandTests.TestParams params) throws Exception {
             assertEquals(params.response, repl.eval(params.command), params.description + ": response");
             assertEquals(drawBoard(params.board), repl.drawBoard(), params.description + ": board");
+
+            StringBuilder out = new StringBuilder("> ");
+            repl.drawBoard(out);
+            assertEquals("> " + drawBoard(params.board), out.toString(), params.description + ": appended board");
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,161 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-test class SessionRegistry.
+ */
+class SessionRegistryTest {
+    private final AtomicLong now = new AtomicLong();
+
+    private SessionRegistry registry(int capacity, int shards) {
+        return new SessionRegistry(capacity, 10, TimeUnit.NANOSECONDS, shards, now::get);
+    }
+
+    @Test
+    void putAndGet() throws InvalidMoveException {
+        SessionRegistry registry = registry(100, 4);
+        Game game = new Game();
+        game.move(Game.PIECE_X, 4);
+        registry.put(1, new Game());
+        registry.put(2, game);
+
+        assertEquals(0, registry.getSnapshot(1), "empty board");
+        assertArrayEquals(game.getBoard(), registry.get(2).getBoard(), "board");
+        assertNull(registry.get(3), "missing session");
+        assertEquals(SessionRegistry.MISSING, registry.getSnapshot(3), "missing snapshot");
+        assertEquals(2, registry.size(), "size");
+
+        assertEquals(2, registry.getHits(), "hits");
+        assertEquals(2, registry.getMisses(), "misses");
+        assertEquals(0, registry.getEvictions(), "evictions");
+
+        assertTrue(registry.remove(1), "removed");
+        assertFalse(registry.remove(1), "removed again");
+        assertEquals(1, registry.size(), "size after remove");
+    }
+
+    @Test
+    void tryMove() {
+        SessionRegistry registry = registry(100, 4);
+        registry.put(7, new Game());
+
+        assertEquals(MoveResult.OK, registry.tryMove(7, Game.PIECE_X, 0), "first move");
+        assertEquals(MoveResult.OUT_OF_TURN, registry.tryMove(7, Game.PIECE_X, 1), "out of turn");
+        assertEquals(MoveResult.OCCUPIED, registry.tryMove(7, Game.PIECE_O, 0), "occupied");
+        assertEquals(Game.PIECE_X, registry.get(7).getBoard()[0], "move stored");
+        assertNull(registry.tryMove(8, Game.PIECE_X, 0), "missing session");
+    }
+
+    @Test
+    void idleTimeout() {
+        SessionRegistry registry = registry(100, 4);
+        registry.put(1, new Game());
+        registry.put(2, new Game());
+        registry.put(3, new Game());
+
+        now.set(10);
+        assertNotNull(registry.get(1), "not yet expired");
+        now.set(15);
+        assertNotNull(registry.get(1), "access keeps the session alive");
+        assertNull(registry.get(2), "expired");
+        assertEquals(1, registry.getEvictions(), "evicted on lookup");
+
+        registry.evictExpired();
+        assertEquals(2, registry.getEvictions(), "evicted by sweep");
+        assertEquals(1, registry.size(), "size");
+    }
+
+    @Test
+    void expiredLookupIsAMiss() {
+        SessionRegistry registry = registry(100, 4);
+        registry.put(1, new Game());
+        registry.put(2, new Game());
+
+        now.set(11);
+        assertNull(registry.get(1), "expired lookup");
+        assertNull(registry.tryMove(2, Game.PIECE_X, 4), "expired move");
+
+        assertEquals(0, registry.getHits(), "hits");
+        assertEquals(2, registry.getMisses(), "misses");
+        assertEquals(2, registry.getEvictions(), "evictions");
+    }
+
+    @Test
+    void capacity() {
+        SessionRegistry registry = registry(16, 4);
+        for (int id = 0; id < 100; id++) {
+            now.set(id);
+            registry.put(id, new Game());
+            assertTrue(registry.size() <= 16, "size bounded");
+        }
+        assertEquals(16, registry.size(), "full");
+        assertEquals(100 - 16, registry.getEvictions(), "evictions");
+        assertNotNull(registry.get(99), "latest session kept");
+    }
+
+    @Test
+    void matchesMap() {
+        // Many insertions and removals in a single shard, to exercise probing and removal.
+        SessionRegistry registry = new SessionRegistry(1000, 1, TimeUnit.DAYS, 1, now::get);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            final long id = random.nextInt(2000);
+            switch (random.nextInt(3)) {
+                case 0:
+                    if (expected.size() < 1000 || expected.containsKey(id)) {
+                        Game game = new Game();
+                        game.tryMove(Game.PIECE_X, random.nextInt(Bitboard.CELLS));
+                        registry.put(id, game);
+                        expected.put(id, game.snapshot());
+                    }
+                    break;
+                case 1:
+                    assertEquals(expected.remove(id) != null, registry.remove(id), "remove " + id);
+                    break;
+                default:
+                    assertEquals((int) expected.getOrDefault(id, SessionRegistry.MISSING),
+                            registry.getSnapshot(id), "get " + id);
+            }
+        }
+        assertEquals(expected.size(), registry.size(), "size");
+        assertEquals(0, registry.getEvictions(), "evictions");
+    }
+
+    @Test
+    void concurrentMoves() throws InterruptedException {
+        final SessionRegistry registry = new SessionRegistry(10_000, 1, TimeUnit.DAYS);
+        for (int id = 0; id < 1000; id++) {
+            registry.put(id, new Game());
+            registry.tryMove(id, Game.PIECE_X, 4);
+        }
+
+        // All the threads race to reply for O, each in a different space.
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int id = 0; id < 1000; id++) {
+                    registry.tryMove(id, Game.PIECE_O, offset);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread: threads) thread.join();
+
+        for (int id = 0; id < 1000; id++) {
+            final int bits = registry.getSnapshot(id);
+            assertEquals(1, Integer.bitCount(Bitboard.xMask(bits)), "X moved once");
+            assertEquals(1, Integer.bitCount(Bitboard.oMask(bits)), "O moved once");
+        }
+    }
+}
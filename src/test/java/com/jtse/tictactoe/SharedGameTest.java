@@ -0,0 +1,113 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-test class SharedGame.
+ */
+class SharedGameTest {
+    private static final int THREADS = 8;
+    private static final int GAMES = 2000;
+
+    @Test
+    void matchesGame() {
+        // With one thread, every move is checked exactly as Game checks it.
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            Game game = new Game();
+            SharedGame shared = new SharedGame();
+            while (game.findNextPlayer() != null) {
+                final Boolean piece = random.nextInt(10) == 0 ? null : random.nextBoolean();
+                final int idx = random.nextInt(Bitboard.CELLS + 2) - 1;
+                assertEquals(game.tryMove(piece, idx), shared.tryMove(piece, idx), "result of move");
+                assertArrayEquals(game.getBoard(), shared.getBoard(), "board");
+                assertEquals(game.findWinner(), shared.findWinner(), "winner");
+                assertEquals(game.findNextPlayer(), shared.findNextPlayer(), "next player");
+                assertEquals(game.legalMovesMask(), shared.legalMovesMask(), "legal moves");
+            }
+            assertEquals(game.tryMove(Game.PIECE_X, 0), shared.tryMove(Game.PIECE_X, 0), "move after game over");
+        }
+    }
+
+    @Test
+    void invalidMoveMessage() throws InvalidMoveException {
+        SharedGame shared = new SharedGame();
+        shared.move(Game.PIECE_X, 4);
+        InvalidMoveException e = assertThrows(InvalidMoveException.class, () -> shared.move(Game.PIECE_O, 4));
+        assertEquals("the space is already occupied", e.getMessage(), "exception message");
+    }
+
+    @Test
+    void copiesGame() throws InvalidMoveException {
+        Game game = new Game();
+        game.move(Game.PIECE_X, 0);
+        SharedGame shared = new SharedGame(game);
+        shared.move(Game.PIECE_O, 8);
+
+        assertEquals(game.snapshot() | Bitboard.bit(true, 8), shared.snapshot(), "snapshot");
+        assertArrayEquals(shared.getBoard(), shared.toGame().getBoard(), "copied back");
+        shared.reset();
+        assertEquals(0, shared.snapshot(), "reset");
+    }
+
+    @Test
+    void concurrentMoves() throws Exception {
+        // Every thread tries to play every move in every game, for both players, so each
+        // move is contested. Each move must succeed for exactly one thread.
+        final SharedGame[] games = new SharedGame[GAMES];
+        for (int i = 0; i < GAMES; i++) games[i] = new SharedGame();
+        final AtomicIntegerArray successes = new AtomicIntegerArray(GAMES);
+        final CyclicBarrier start = new CyclicBarrier(THREADS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final long seed = t;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    start.await();
+                    for (int i = 0; i < GAMES; i++) {
+                        final SharedGame game = games[i];
+                        while (game.findNextPlayer() != null) {
+                            final MoveResult result = game.tryMove(random.nextBoolean(), random.nextInt(Bitboard.CELLS));
+                            if (result == MoveResult.OK) successes.incrementAndGet(i);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future: futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int i = 0; i < GAMES; i++) {
+            final int bits = games[i].snapshot();
+            final int numX = Integer.bitCount(Bitboard.xMask(bits));
+            final int numO = Integer.bitCount(Bitboard.oMask(bits));
+            assertEquals(numX + numO, successes.get(i), "one success per piece on the board");
+            assertEquals(0, Bitboard.xMask(bits) & Bitboard.oMask(bits), "no space taken twice");
+            assertTrue(numX - numO == 0 || numX - numO == 1, "players alternate");
+
+            // No move was made after the game was won.
+            final boolean xWon = Bitboard.isWinning(Bitboard.xMask(bits));
+            final boolean oWon = Bitboard.isWinning(Bitboard.oMask(bits));
+            assertFalse(xWon && oWon, "only one winner");
+            if (xWon) assertEquals(numO + 1, numX, "X's winning move was the last");
+            if (oWon) assertEquals(numO, numX, "O's winning move was the last");
+            if (!xWon && !oWon) assertEquals(Bitboard.CELLS, numX + numO, "draw fills the board");
+        }
+    }
+}
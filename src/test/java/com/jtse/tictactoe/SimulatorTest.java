@@ -0,0 +1,67 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-test class Simulator.
+ */
+class SimulatorTest {
+    private static final long GAMES = 10_000;
+
+    @Test
+    void perfectPlayDraws() {
+        Simulator.Statistics stats = new Simulator(MovePolicy.perfect(), MovePolicy.perfect()).run(GAMES, 1);
+        assertEquals(GAMES, stats.getDraws(), "draws");
+        assertEquals(GAMES, stats.getGames(), "games");
+    }
+
+    @Test
+    void perfectPlayNeverLoses() {
+        Simulator.Statistics stats = new Simulator(MovePolicy.perfect(), MovePolicy.random()).run(GAMES, 2);
+        assertEquals(0, stats.getOWins(), "O wins against perfect X");
+        assertTrue(stats.getXWins() > 0, "X beats random O");
+        assertEquals(GAMES, stats.getGames(), "games");
+    }
+
+    @Test
+    void scriptedGame() {
+        // X takes the 0-4-8 diagonal while O plays along the top row.
+        Simulator.Statistics stats = new Simulator(
+                MovePolicy.scripted(0, 4, 8),
+                MovePolicy.scripted(1, 2)
+        ).run(3, 3);
+        assertEquals(3, stats.getXWins(), "X wins");
+        assertEquals(3, stats.getGames(), "games");
+    }
+
+    @Test
+    void resultsIndependentOfParallelism() {
+        final long games = 20_000; // several batches, the last one partial
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool multiple = new ForkJoinPool(4);
+        try {
+            Simulator.Statistics expected =
+                    new Simulator(MovePolicy.random(), MovePolicy.random(), single).run(games, 4);
+            Simulator.Statistics actual =
+                    new Simulator(MovePolicy.random(), MovePolicy.random(), multiple).run(games, 4);
+
+            assertEquals(games, expected.getGames(), "games");
+            assertEquals(expected.getXWins(), actual.getXWins(), "X wins");
+            assertEquals(expected.getOWins(), actual.getOWins(), "O wins");
+            assertEquals(expected.getDraws(), actual.getDraws(), "draws");
+        } finally {
+            single.shutdown();
+            multiple.shutdown();
+        }
+    }
+
+    @Test
+    void invalidMove() {
+        Simulator simulator = new Simulator((game, random) -> 9, MovePolicy.random());
+        assertThrows(IllegalStateException.class, () -> simulator.run(1, 5));
+    }
+}
@@ -0,0 +1,155 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-test class Solver.
+ */
+class SolverTest {
+    // These symbols are just to make the following board definitions more readable in the editor.
+    private static final Boolean ___ = null;
+    private static final Boolean _X_ = Game.PIECE_X;
+    private static final Boolean _O_ = Game.PIECE_O;
+
+    // A plain minimax search, without pruning or caching, using the same value
+    // convention as Solver: from X's point of view, scaled by the empty spaces left.
+    private static int bruteForceValue(Game game) throws InvalidMoveException {
+        final Boolean[] board = game.getBoard();
+        int empty = 0;
+        for (Boolean piece: board) if (piece == null) empty++;
+
+        final Boolean winner = game.findWinner();
+        if (winner != null) return winner ? -(empty + 1) : empty + 1;
+
+        final Boolean nextPlayer = game.findNextPlayer();
+        if (nextPlayer == null) return 0;
+
+        int best = nextPlayer ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+        for (int idx = 0; idx < board.length; idx++) {
+            if (board[idx] != null) continue;
+            final int value = bruteForceValue(child(game, nextPlayer, idx));
+            best = nextPlayer ? Math.min(best, value) : Math.max(best, value);
+        }
+        return best;
+    }
+
+    private static Game child(Game game, Boolean piece, int idx) throws InvalidMoveException {
+        try {
+            Game child = new Game(game.getBoard());
+            child.move(piece, idx);
+            return child;
+        } catch (InvalidBoardException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // Checks every position reachable from game against the brute-force search.
+    private static void checkAllPositions(Game game, Set<String> seen) throws InvalidMoveException {
+        final Boolean[] board = game.getBoard();
+        if (!seen.add(Arrays.toString(board))) return;
+
+        final int value = bruteForceValue(game);
+        assertEquals(value, Solver.value(game), "value of " + Arrays.toString(board));
+
+        final Boolean nextPlayer = game.findNextPlayer();
+        if (nextPlayer == null) {
+            assertEquals(0, Solver.bestMoves(game), "no best moves when the game is over");
+            return;
+        }
+
+        final int bestMoves = Solver.bestMoves(game);
+        assertNotEquals(0, bestMoves, "best moves of " + Arrays.toString(board));
+        for (int idx = 0; idx < board.length; idx++) {
+            if (board[idx] != null) {
+                assertEquals(0, bestMoves & (1 << idx), "occupied space is not a best move");
+                continue;
+            }
+            final Game child = child(game, nextPlayer, idx);
+            final boolean optimal = bruteForceValue(child) == value;
+            assertEquals(optimal, (bestMoves & (1 << idx)) != 0,
+                    "move to " + idx + " from " + Arrays.toString(board));
+            checkAllPositions(child, seen);
+        }
+    }
+
+    @Test
+    void emptyBoardIsDraw() {
+        Game game = new Game();
+        assertEquals(0, Solver.value(game), "value");
+        assertEquals(0x1ff, Solver.bestMoves(game), "every opening move draws");
+    }
+
+    @Test
+    void takesImmediateWin() throws InvalidBoardException {
+        Game game = new Game(new Boolean[]{
+                _X_, _X_, ___,
+                _O_, _O_, ___,
+                ___, ___, ___,
+        });
+        assertEquals(1 << 2, Solver.bestMoves(game), "X completes row 0");
+        assertEquals(5, Solver.value(game), "X wins with 4 spaces left");
+    }
+
+    @Test
+    void blocksImmediateLoss() throws InvalidBoardException {
+        Game game = new Game(new Boolean[]{
+                _X_, ___, ___,
+                ___, _O_, ___,
+                ___, ___, _X_,
+        });
+        assertEquals(0, Solver.value(game), "draw");
+        assertEquals(0b010_101_010, Solver.bestMoves(game), "O must take an edge");
+    }
+
+    @Test
+    void distanceToEnd() throws InvalidBoardException {
+        assertEquals(9, Solver.distanceToEnd(new Game()), "a drawn game fills the board");
+        assertEquals(1, Solver.distanceToEnd(new Game(new Boolean[]{
+                _X_, _X_, ___,
+                _O_, _O_, ___,
+                ___, ___, ___,
+        })), "X wins immediately");
+        assertEquals(0, Solver.distanceToEnd(new Game(new Boolean[]{
+                _X_, _O_, _O_,
+                _X_, _X_, ___,
+                _X_, ___, _O_,
+        })), "X has already won");
+    }
+
+    @Test
+    void unreachableBoard() throws InvalidBoardException {
+        // Both players have a line, which cannot happen in play; Game considers the owner
+        // of the first line, in row, column, diagonal order, the winner.
+        Game game = new Game(new Boolean[]{
+                _X_, _X_, _X_,
+                _O_, _O_, _O_,
+                ___, ___, ___,
+        });
+        assertEquals(4, Solver.value(game), "X has won with 3 spaces left");
+        assertEquals(0, Solver.bestMoves(game), "the game is over");
+        assertEquals(0, Solver.distanceToEnd(game), "the game is over");
+    }
+
+    @Test
+    void unreachableBoardWonByO() throws InvalidBoardException {
+        // O's line comes first, so Game considers O the winner, and so does the solver.
+        Game game = new Game(new Boolean[]{
+                _O_, _O_, _O_,
+                _X_, _X_, _X_,
+                _X_, ___, ___,
+        });
+        assertEquals(Game.PIECE_O, game.findWinner(), "winner");
+        assertEquals(-3, Solver.value(game), "O has won with 2 spaces left");
+    }
+
+    @Test
+    void agreesWithBruteForce() throws InvalidMoveException {
+        checkAllPositions(new Game(), new HashSet<>());
+    }
+}
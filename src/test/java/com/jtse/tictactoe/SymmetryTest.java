@@ -0,0 +1,73 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-test class Symmetry.
+ */
+class SymmetryTest {
+    // A board with no symmetry: X at 0 and 1, O at 5.
+    private static final int ASYMMETRIC = Bitboard.bit(false, 0) | Bitboard.bit(false, 1) | Bitboard.bit(true, 5);
+
+    @Test
+    void transformsAreDistinct() {
+        Set<Integer> images = new HashSet<>();
+        for (int t = 0; t < Symmetry.TRANSFORMS; t++) {
+            images.add(Symmetry.transform(t, ASYMMETRIC));
+        }
+        assertEquals(Symmetry.TRANSFORMS, images.size(), "each transform gives a different board");
+    }
+
+    @Test
+    void inverses() {
+        for (int t = 0; t < Symmetry.TRANSFORMS; t++) {
+            final int inverse = Symmetry.inverse(t);
+            assertEquals(ASYMMETRIC, Symmetry.transform(inverse, Symmetry.transform(t, ASYMMETRIC)),
+                    "transform " + t + " then its inverse");
+            for (int idx = 0; idx < Bitboard.CELLS; idx++) {
+                assertEquals(idx, Symmetry.transformMove(inverse, Symmetry.transformMove(t, idx)),
+                        "move " + idx + " under transform " + t + " then its inverse");
+            }
+        }
+    }
+
+    @Test
+    void winningLinesArePreserved() {
+        for (int t = 0; t < Symmetry.TRANSFORMS; t++) {
+            for (int line: Bitboard.LINES) {
+                assertTrue(Bitboard.isWinning(Symmetry.transformMask(t, line)),
+                        "line " + Integer.toBinaryString(line) + " under transform " + t);
+            }
+        }
+    }
+
+    @Test
+    void canonicalize() {
+        final int canonical = Symmetry.canonicalBoard(ASYMMETRIC);
+        for (int t = 0; t < Symmetry.TRANSFORMS; t++) {
+            final int bits = Symmetry.transform(t, ASYMMETRIC);
+            final int canonicalized = Symmetry.canonicalize(bits);
+            assertEquals(canonical, Symmetry.board(canonicalized), "same representative under transform " + t);
+            assertEquals(canonical, Symmetry.transform(Symmetry.transformOf(canonicalized), bits),
+                    "reported transform produces the representative");
+            assertTrue(canonical <= bits, "representative is minimal");
+        }
+    }
+
+    @Test
+    void legalPositionClasses() {
+        Set<Integer> classes = new HashSet<>();
+        for (int index = 0; index < Bitboard.INDEXES; index++) {
+            final int bits = Bitboard.fromIndex(index);
+            if (PerfectPlayTable.isLegal(PerfectPlayTable.entry(bits))) {
+                classes.add(Symmetry.canonicalBoard(bits));
+            }
+        }
+        assertEquals(765, classes.size(), "essentially different legal positions");
+    }
+}
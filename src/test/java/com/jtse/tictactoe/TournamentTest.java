@@ -0,0 +1,199 @@
+package com.jtse.tictactoe;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-test class Tournament.
+ */
+class TournamentTest {
+    private static final long GAMES = 1_000;
+
+    private final Player perfect = new Player("perfect", MovePolicy.perfect());
+    private final Player random = new Player("random", MovePolicy.random());
+    private final Player scripted = new Player("scripted", MovePolicy.scripted(0, 1, 2, 3, 4, 5, 6, 7, 8));
+
+    @Test
+    void roundRobinPlaysEveryPairing() {
+        Tournament.Results results = new Tournament(
+                Arrays.asList(perfect, random, scripted), GAMES, 1, TimeUnit.SECONDS).roundRobin(1);
+
+        assertEquals(3, results.getPairings().size(), "pairings");
+        for (Tournament.Pairing pairing: results.getPairings()) {
+            assertEquals(1, pairing.getRound(), "round");
+            assertEquals(GAMES, pairing.getGames(), "games in " + pairing);
+            assertEquals(0, pairing.getFirstForfeits() + pairing.getSecondForfeits(), "forfeits in " + pairing);
+        }
+        assertEquals(3 * GAMES, results.getGames(), "games");
+
+        for (Tournament.Standing standing: results.getStandings()) {
+            assertEquals(2 * GAMES, standing.getGames(), "games played by " + standing);
+        }
+    }
+
+    @Test
+    void perfectPlayWinsAndRatesHighest() {
+        Tournament.Results results = new Tournament(
+                Arrays.asList(random, scripted, perfect), GAMES, 1, TimeUnit.SECONDS).roundRobin(2);
+
+        Tournament.Standing best = results.getStandings().get(0);
+        assertSame(perfect, best.getPlayer(), "winner");
+        assertEquals(2, best.getPoints(), "points");
+        assertEquals(0, best.getLosses(), "losses");
+        assertTrue(best.getRating() > Tournament.INITIAL_RATING, "rating rises");
+
+        double total = 0;
+        for (Tournament.Standing standing: results.getStandings()) total += standing.getRating();
+        assertEquals(3 * Tournament.INITIAL_RATING, total, 1e-9, "ratings are zero-sum");
+    }
+
+    @Test
+    void perfectPlayDraws() {
+        Player other = new Player("also perfect", MovePolicy.perfect());
+        Tournament.Results results = new Tournament(
+                Arrays.asList(perfect, other), GAMES, 1, TimeUnit.SECONDS).roundRobin(3);
+
+        Tournament.Pairing pairing = results.getPairings().get(0);
+        assertEquals(GAMES, pairing.getDraws(), "draws");
+        assertEquals(0.5, pairing.getFirstScore(), "score");
+        assertEquals(0.5, results.getStanding(perfect).getPoints(), "points");
+        assertEquals(Tournament.INITIAL_RATING, results.getStanding(other).getRating(), 1e-9, "rating");
+    }
+
+    @Test
+    void playersAlternateX() {
+        // Whoever plays X takes the 0-1-2 row, since O's script blocks nothing.
+        Player top = new Player("top", MovePolicy.scripted(0, 1, 2));
+        Player bottom = new Player("bottom", MovePolicy.scripted(6, 7, 8));
+        Tournament.Results results = new Tournament(
+                Arrays.asList(top, bottom), 5, 1, TimeUnit.SECONDS).roundRobin(4);
+
+        Tournament.Pairing pairing = results.getPairings().get(0);
+        assertEquals(3, pairing.getFirstWins(), "first player's wins as X");
+        assertEquals(2, pairing.getSecondWins(), "second player's wins as X");
+        assertEquals(1, results.getStanding(top).getPoints(), "points");
+    }
+
+    @Test
+    void ratingsIndependentOfEntryOrder() {
+        // Scripted players play the same games whatever their seeds, so only the order differs.
+        Player center = new Player("center", MovePolicy.scripted(4, 0, 2, 6, 8));
+        Player top = new Player("top", MovePolicy.scripted(0, 1, 2, 3, 4, 5, 6, 7, 8));
+        Player bottom = new Player("bottom", MovePolicy.scripted(8, 7, 6, 5, 4, 3, 2, 1, 0));
+        Tournament.Results expected = new Tournament(
+                Arrays.asList(center, top, bottom), 10, 1, TimeUnit.SECONDS).roundRobin(9);
+        Tournament.Results permuted = new Tournament(
+                Arrays.asList(bottom, center, top), 10, 1, TimeUnit.SECONDS).roundRobin(9);
+
+        for (Player player: Arrays.asList(center, top, bottom)) {
+            assertEquals(expected.getStanding(player).getRating(), permuted.getStanding(player).getRating(), 1e-9,
+                    "rating of " + player);
+            assertEquals(expected.getStanding(player).getPoints(), permuted.getStanding(player).getPoints(),
+                    "points of " + player);
+        }
+        assertTrue(expected.getStanding(bottom).getRating() > Tournament.INITIAL_RATING, "rating rises");
+    }
+
+    @Test
+    void invalidMoveForfeits() {
+        Player cheat = new Player("cheat", (game, random) -> 0);
+        Tournament.Results results = new Tournament(
+                Arrays.asList(cheat, random), GAMES, 1, TimeUnit.SECONDS).roundRobin(5);
+
+        Tournament.Standing standing = results.getStanding(cheat);
+        assertEquals(0, standing.getWins(), "wins");
+        assertEquals(GAMES, standing.getLosses(), "losses");
+        assertEquals(GAMES, standing.getForfeits(), "forfeits");
+        assertEquals(0, results.getStanding(random).getForfeits(), "opponent's forfeits");
+    }
+
+    @Test
+    void slowMoveForfeits() {
+        Player slow = new Player("slow", (game, random) -> {
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Bitboard.randomLocation(Bitboard.empty(game.packedBoard()), random);
+        });
+        Tournament.Results results = new Tournament(
+                Arrays.asList(slow, perfect), 10, 1, TimeUnit.MILLISECONDS).roundRobin(6);
+
+        assertEquals(10, results.getStanding(slow).getForfeits(), "forfeits");
+        assertEquals(10, results.getStanding(perfect).getWins(), "opponent's wins");
+    }
+
+    @Test
+    void swissGivesByesAndAvoidsRematches() {
+        List<Player> players = Arrays.asList(
+                perfect, random, scripted,
+                new Player("random 2", MovePolicy.random()),
+                new Player("scripted 2", MovePolicy.scripted(8, 7, 6, 5, 4, 3, 2, 1, 0)));
+        Tournament.Results results = new Tournament(players, GAMES, 1, TimeUnit.SECONDS).swiss(3, 7);
+
+        assertEquals(6, results.getPairings().size(), "pairings");
+        int byes = 0;
+        for (Tournament.Standing standing: results.getStandings()) {
+            assertTrue(standing.getByes() <= 1, "at most one bye for " + standing);
+            byes += standing.getByes();
+        }
+        assertEquals(3, byes, "byes");
+
+        for (int i = 0; i < results.getPairings().size(); i++) {
+            Tournament.Pairing pairing = results.getPairings().get(i);
+            assertEquals(i / 2 + 1, pairing.getRound(), "round of " + pairing);
+            for (int j = 0; j < i; j++) {
+                Tournament.Pairing earlier = results.getPairings().get(j);
+                boolean rematch = earlier.getFirst() == pairing.getFirst() && earlier.getSecond() == pairing.getSecond()
+                        || earlier.getFirst() == pairing.getSecond() && earlier.getSecond() == pairing.getFirst();
+                assertFalse(rematch, "rematch: " + pairing);
+            }
+        }
+        assertSame(perfect, results.getStandings().get(0).getPlayer(), "winner");
+    }
+
+    @Test
+    void resultsIndependentOfParallelism() {
+        final long games = 10_000; // several batches, the last one partial
+        List<Player> players = Arrays.asList(random, scripted, new Player("random 2", MovePolicy.random()));
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool multiple = new ForkJoinPool(4);
+        try {
+            Tournament.Results expected =
+                    new Tournament(players, games, 1, TimeUnit.SECONDS, single).swiss(2, 8);
+            Tournament.Results actual =
+                    new Tournament(players, games, 1, TimeUnit.SECONDS, multiple).swiss(2, 8);
+
+            assertEquals(expected.getPairings().toString(), actual.getPairings().toString(), "pairings");
+            assertEquals(expected.getStandings().toString(), actual.getStandings().toString(), "standings");
+        } finally {
+            single.shutdown();
+            multiple.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new Tournament(Collections.singletonList(random), GAMES, 1, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Tournament(Arrays.asList(random, random), GAMES, 1, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Tournament(Arrays.asList(random, perfect), 0, 1, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Tournament(Arrays.asList(random, perfect), GAMES, 0, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Tournament(Arrays.asList(random, perfect), GAMES, 1, TimeUnit.SECONDS).swiss(0, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Tournament(Arrays.asList(random, perfect), GAMES, 1, TimeUnit.SECONDS)
+                        .roundRobin(1).getStanding(scripted));
+    }
+}